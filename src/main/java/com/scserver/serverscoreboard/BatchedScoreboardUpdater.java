@@ -70,7 +70,9 @@ public class BatchedScoreboardUpdater {
             updates.clear();
         }
         
-        ServerScoreboardLogger.info("Flushed batch for player " + player.getName().getString() + ": " + sentCount + " updates sent");
+        if (ServerScoreboardLogger.isDebugEnabled()) {
+            ServerScoreboardLogger.debug("Flushed batch for player " + player.getName().getString() + ": " + sentCount + " updates sent");
+        }
     }
     
     private static boolean shouldFlushBatch(List<PendingUpdate> updates) {
@@ -14,276 +14,595 @@ import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class CustomScoreboardPacketSender {
-    // プレイヤー毎の変換済みスコアボードキャッシュ: プレイヤーUUID -> オブジェクティブ名 -> プレイヤー名 -> スコア値
-    private static final Map<String, Map<String, Map<String, Integer>>> transformedScoreCache = new ConcurrentHashMap<>();
+    // プレイヤーごとの変換済みスコアボードの表示状態
+    private static final Map<UUID, TransformedView> transformedViews = new ConcurrentHashMap<>();
+    // 変換内容 -> その変換内容のプレイヤーで共有する変換結果
+    private static final Map<ScoreboardTransformData.EffectiveTransform, SharedTransform> sharedTransforms = new ConcurrentHashMap<>();
+    // 以前のバージョンがサーバーのスコアボードに登録していたカスタムスコアボードの接頭辞
+    public static final String CUSTOM_OBJECTIVE_PREFIX = "mysb_custom_";
+    // プレイヤーごとのカスタムスコアボードの送信状態（スコアの値はCustomScoreboardDataが保持する）
+    private static final Map<UUID, CustomBoardState> customBoards = new ConcurrentHashMap<>();
+    
+    // 変換内容が同じプレイヤーで共有する変換結果（閲覧者の数によらず変換は1回）
+    private static final class SharedTransform {
+        final ScoreboardTransformData.EffectiveTransform transform;
+        // 全エントリの変換後のスコア
+        final Map<String, Integer> transformed = new HashMap<>();
+        final Set<UUID> viewers = new HashSet<>();
+        // 表示範囲を絞る場合の上位エントリ（変換結果が変わるまで使い回す）
+        SidebarWindow.Ranking ranking;
+        // 今回の更新で変換後の値が変わったエントリ（削除はnull）
+        Map<String, Integer> delta;
+        
+        SharedTransform(ScoreboardTransformData.EffectiveTransform transform) {
+            this.transform = transform;
+        }
+    }
+    
+    // プレイヤーごとの送信状態
+    private static final class TransformedView {
+        final SharedTransform shared;
+        final String virtualObjectiveName;
+        // クライアントに送信済みのスコア
+        final Map<String, Integer> sent = new HashMap<>();
+        // 送信済みの表示名・表示形式
+        String displayName;
+        ScoreboardCriterion.RenderType renderType;
+        // クライアントに仮想オブジェクティブを作成済みか
+        boolean created = false;
+        // 送信済みの内容が変換結果と一致しているか（レート制限で送れなかった場合はfalse）
+        boolean synced = false;
+        // 表示範囲を絞って送信しているか
+        boolean windowed = false;
+        
+        TransformedView(SharedTransform shared, String virtualObjectiveName) {
+            this.shared = shared;
+            this.virtualObjectiveName = virtualObjectiveName;
+        }
+    }
+    
+    private static final class CustomBoardState {
+        final VirtualObjective objective;
+        // クライアントにオブジェクティブを作成済みか
+        volatile boolean created = false;
+        // 全体を送信済みか（以降は変更したエントリのみ送信する）
+        volatile boolean synced = false;
+        
+        CustomBoardState(VirtualObjective objective) {
+            this.objective = objective;
+        }
+    }
     
     // バニラのスコアボードを変換して送信する（サーバー側データを変更しない）
+    // 表示するオブジェクティブや変換設定を指定したときに呼び出す。以降の更新はpollTransformedViewsで差分のみ送信する
     public static void sendTransformedScoreboard(ServerPlayerEntity player, String originalObjectiveName, ScoreboardTransformData transformData) {
         MinecraftServer server = player.getServer();
         if (server == null) return;
         
-        ServerScoreboard serverScoreboard = server.getScoreboard();
-        ScoreboardObjective originalObjective = serverScoreboard.getObjective(originalObjectiveName);
+        ScoreboardObjective originalObjective = server.getScoreboard().getObjective(originalObjectiveName);
         if (originalObjective == null) return;
         
-        // 変換された表示名を取得
-        String transformedDisplayName = transformData.getTransformedDisplayName(originalObjectiveName);
-        if (transformedDisplayName == null) {
-            transformedDisplayName = originalObjective.getDisplayName().getString();
+        // 変換内容が同じプレイヤーとは変換結果を共有する
+        SharedTransform shared = acquireSharedTransform(server, transformData.getEffectiveTransform(originalObjectiveName), originalObjective);
+        TransformedView previous = transformedViews.get(player.getUuid());
+        TransformedView view = new TransformedView(shared, virtualObjectiveName(player));
+        if (previous != null) {
+            // クライアントには前のオブジェクティブが残っているため、送信済みの状態を引き継いで差分で置き換える
+            view.created = previous.created;
+            view.displayName = previous.displayName;
+            view.renderType = previous.renderType;
+            view.sent.putAll(previous.sent);
+        }
+        transformedViews.put(player.getUuid(), view);
+        shared.viewers.add(player.getUuid());
+        if (previous != null && previous.shared != shared) {
+            releaseSharedTransform(previous.shared, player.getUuid());
         }
         
-        // プレイヤー専用の仮想オブジェクティブ名
-        String virtualObjectiveName = "mysb_virtual_" + player.getUuidAsString().substring(0, 8);
+        ScoreboardObjective virtualObjective = updateVirtualObjective(player, view, originalObjective);
+        // サイドバーに表示
+        ModMetrics.sendPacket(player, new ScoreboardDisplayS2CPacket(1, virtualObjective));
+        syncVisibleTransformedScores(player, view);
         
-        // 仮想オブジェクティブをクライアントにのみ作成（サーバー側スコアボードには追加しない）
-        ScoreboardObjective virtualObjective = new VirtualObjective(
-            virtualObjectiveName,
-            originalObjective.getCriterion(),
-            Text.literal(transformedDisplayName),
-            originalObjective.getRenderType()
-        );
+        if (ServerScoreboardLogger.isDebugEnabled()) {
+            ServerScoreboardLogger.debug("Sent virtual transformed scoreboard " + originalObjectiveName + " to player " + player.getName().getString() +
+                " (" + shared.transformed.size() + " scores, shared with " + (shared.viewers.size() - 1) + " players)");
+        }
+    }
+    
+    /**
+     * 変換済みスコアボードを最新の状態にする
+     * 同じ変換内容を表示中の場合は、表示名が変わったときのみオブジェクティブを更新し、スコアは差分のみ送信する
+     */
+    public static void refreshTransformedScoreboard(ServerPlayerEntity player, String originalObjectiveName, ScoreboardTransformData transformData) {
+        TransformedView view = transformedViews.get(player.getUuid());
+        MinecraftServer server = player.getServer();
+        if (view == null || server == null || !view.shared.transform.equals(transformData.getEffectiveTransform(originalObjectiveName))) {
+            sendTransformedScoreboard(player, originalObjectiveName, transformData);
+            return;
+        }
+        
+        ScoreboardObjective originalObjective = server.getScoreboard().getObjective(originalObjectiveName);
+        if (originalObjective == null) return;
+        updateVirtualObjective(player, view, originalObjective);
+        syncVisibleTransformedScores(player, view);
+    }
+    
+    /**
+     * 変換済みスコアボードが監視するオブジェクティブ（変換元と、式が参照するオブジェクティブ）
+     */
+    public static Set<String> getTrackedObjectives() {
+        Set<String> tracked = new HashSet<>();
+        for (SharedTransform shared : sharedTransforms.values()) {
+            tracked.add(shared.transform.objectiveName);
+            tracked.addAll(shared.transform.getReferencedObjectives());
+        }
+        return tracked;
+    }
+    
+    /**
+     * 変換元のオブジェクティブの変更を各プレイヤーの変換済みスコアボードに反映（定期的に呼び出す）
+     * 変更の検出はオブジェクティブごと、変換は同じ変換内容のプレイヤーの組ごとに1回で、
+     * 各プレイヤーには変換後の値が変わったエントリのみを送信する
+     * @param changes ObjectiveChangeStream.pollが返した変更
+     */
+    public static void pollTransformedViews(MinecraftServer server, Map<String, List<ObjectiveChangeStream.Change>> changes) {
+        if (!changes.isEmpty()) {
+            for (SharedTransform shared : sharedTransforms.values()) {
+                shared.delta = computeTransformedDelta(server, shared, changes);
+            }
+        }
         
-        // プレイヤーにオブジェクティブを送信
-        player.networkHandler.sendPacket(new ScoreboardObjectiveUpdateS2CPacket(virtualObjective, 0));
+        for (Map.Entry<UUID, TransformedView> entry : transformedViews.entrySet()) {
+            TransformedView view = entry.getValue();
+            if (!view.synced || view.shared.delta != null) {
+                ServerPlayerEntity player = server.getPlayerManager().getPlayer(entry.getKey());
+                if (player != null) {
+                    applyTransformedDelta(player, view);
+                }
+            }
+        }
         
-        // サイドバーに表示
-        player.networkHandler.sendPacket(new ScoreboardDisplayS2CPacket(1, virtualObjective));
+        for (SharedTransform shared : sharedTransforms.values()) {
+            shared.delta = null;
+        }
+    }
+    
+    // 変換内容に対応する共有の変換結果を取得（なければ現在のスコアから作成）
+    private static SharedTransform acquireSharedTransform(MinecraftServer server, ScoreboardTransformData.EffectiveTransform transform,
+                                                          ScoreboardObjective originalObjective) {
+        SharedTransform shared = sharedTransforms.get(transform);
+        if (shared != null) {
+            return shared;
+        }
         
-        // scoreboard.datから直接スコアデータを読み込んで変換
-        Map<String, Integer> scoreData = ScoreboardDataReader.getAllPlayersScoresForObjective(server, originalObjectiveName);
-        ServerScoreboardLogger.info("Found " + scoreData.size() + " scores for objective " + originalObjectiveName);
+        shared = new SharedTransform(transform);
+        // サーバーのスコアボードの現在値から変換（同一tick内は他の閲覧者とスナップショットを共有）
+        Map<String, Integer> sourceScores = SidebarWindow.snapshot(server, originalObjective).scores;
+        ObjectiveChangeStream.track(transform.objectiveName, sourceScores);
+        for (String referenced : transform.getReferencedObjectives()) {
+            ScoreboardObjective referencedObjective = server.getScoreboard().getObjective(referenced);
+            if (referencedObjective != null) {
+                ObjectiveChangeStream.track(referenced, SidebarWindow.snapshot(server, referencedObjective).scores);
+            }
+        }
+        EntryScores entryScores = createEntryScores(server, transform);
+        for (Map.Entry<String, Integer> entry : sourceScores.entrySet()) {
+            shared.transformed.put(entry.getKey(), transformEntry(transform, entry.getKey(), entry.getValue(), entryScores));
+        }
+        sharedTransforms.put(transform, shared);
+        return shared;
+    }
+    
+    private static void releaseSharedTransform(SharedTransform shared, UUID playerId) {
+        shared.viewers.remove(playerId);
+        if (shared.viewers.isEmpty()) {
+            sharedTransforms.remove(shared.transform, shared);
+        }
+    }
+    
+    // 変更されたエントリのみ変換し直し、変換後の値が変わったエントリを返す（変化がない場合はnull）
+    private static Map<String, Integer> computeTransformedDelta(MinecraftServer server, SharedTransform shared,
+                                                               Map<String, List<ObjectiveChangeStream.Change>> changes) {
+        ScoreboardTransformData.EffectiveTransform transform = shared.transform;
         
-        if (scoreData.isEmpty()) {
-            // scoreboard.datにデータがない場合、サーバーメモリからデータを取得
-            ServerScoreboard scoreboard = server.getScoreboard();
-            ScoreboardObjective objective = scoreboard.getObjective(originalObjectiveName);
-            if (objective != null) {
-                Map<String, Integer> memoryScoreData = new HashMap<>();
-                server.getPlayerManager().getPlayerList().forEach(serverPlayer -> {
-                    String playerName = serverPlayer.getName().getString();
-                    try {
-                        int originalScore = serverScoreboard.getPlayerScore(playerName, objective).getScore();
-                        memoryScoreData.put(playerName, originalScore);
-                    } catch (Exception e) {
-                        // プレイヤーがスコアを持っていない場合はスキップ
-                    }
-                });
-                // 差分変換スコアボード送信
-                sendDifferentialTransformedScores(player, virtualObjectiveName, originalObjectiveName, memoryScoreData, transformData);
+        // 変換元の変更と、式が参照するオブジェクティブの変更の対象エントリ
+        Set<String> affected = null;
+        List<ObjectiveChangeStream.Change> sourceChanges = changes.get(transform.objectiveName);
+        if (sourceChanges != null) {
+            affected = new HashSet<>();
+            for (ObjectiveChangeStream.Change change : sourceChanges) {
+                affected.add(change.entry);
             }
-        } else {
-            // 差分変換スコアボード送信
-            sendDifferentialTransformedScores(player, virtualObjectiveName, originalObjectiveName, scoreData, transformData);
         }
+        for (String referenced : transform.getReferencedObjectives()) {
+            List<ObjectiveChangeStream.Change> referencedChanges = changes.get(referenced);
+            if (referencedChanges != null) {
+                if (affected == null) affected = new HashSet<>();
+                for (ObjectiveChangeStream.Change change : referencedChanges) {
+                    affected.add(change.entry);
+                }
+            }
+        }
+        if (affected == null) return null;
+        
+        ScoreboardObjective originalObjective = server.getScoreboard().getObjective(transform.objectiveName);
+        if (originalObjective == null) return null;
+        Map<String, Integer> sourceScores = SidebarWindow.snapshot(server, originalObjective).scores;
+        
+        Map<String, Integer> delta = new HashMap<>();
+        EntryScores entryScores = createEntryScores(server, transform);
+        for (String entryName : affected) {
+            Integer originalScore = sourceScores.get(entryName);
+            Integer value = originalScore != null ? transformEntry(transform, entryName, originalScore, entryScores) : null;
+            Integer old = value != null ? shared.transformed.put(entryName, value) : shared.transformed.remove(entryName);
+            if (value != null ? !value.equals(old) : old != null) {
+                delta.put(entryName, value);
+            }
+        }
+        if (delta.isEmpty()) return null;
+        shared.ranking = null;
+        return delta;
+    }
+    
+    // 共有の変換結果の変化をプレイヤーに送信
+    private static void applyTransformedDelta(ServerPlayerEntity player, TransformedView view) {
+        Map<String, Integer> delta = view.shared.delta;
+        if (delta == null || !view.synced || view.windowed || SidebarWindow.shouldApply(view.shared.transformed.size())) {
+            // 表示範囲が変わる可能性があるため、表示するエントリを選び直して差分を送信
+            syncVisibleTransformedScores(player, view);
+            return;
+        }
+        
+        // 全エントリを表示している場合は変化したエントリのみ送信
+        for (Map.Entry<String, Integer> entry : delta.entrySet()) {
+            Integer value = entry.getValue();
+            Integer sentValue = view.sent.get(entry.getKey());
+            if (value != null ? value.equals(sentValue) : sentValue == null) {
+                ModMetrics.PACKETS_COALESCED.increment();
+                continue;
+            }
+            if (!RateLimiter.canSendPacket(player.getUuid())) {
+                // 次回に全体を比較し直す
+                view.synced = false;
+                continue;
+            }
+            sendTransformedScore(player, view, entry.getKey(), value);
+        }
+    }
+    
+    private static int transformEntry(ScoreboardTransformData.EffectiveTransform transform, String entryName, int originalScore,
+                                      EntryScores entryScores) {
+        if (entryScores != null) {
+            entryScores.entry = entryName;
+        }
+        return transform.transform(entryName, originalScore, entryScores);
+    }
+    
+    private static EntryScores createEntryScores(MinecraftServer server, ScoreboardTransformData.EffectiveTransform transform) {
+        ScoreExpression expression = transform.getExpression();
+        return expression != null && !expression.getReferencedObjectives().isEmpty() ? EntryScores.create(server, expression) : null;
+    }
+    
+    /**
+     * 仮想オブジェクティブをクライアントに作成、または表示名が変わった場合のみ更新
+     */
+    private static ScoreboardObjective updateVirtualObjective(ServerPlayerEntity player, TransformedView view, ScoreboardObjective originalObjective) {
+        String displayName = view.shared.transform.displayName;
+        if (displayName == null) {
+            displayName = originalObjective.getDisplayName().getString();
+        }
+        ScoreboardCriterion.RenderType renderType = originalObjective.getRenderType();
         
-        ServerScoreboardLogger.info("Sent virtual transformed scoreboard " + originalObjectiveName + " to player " + player.getName().getString());
+        // 仮想オブジェクティブをクライアントにのみ作成（サーバー側スコアボードには追加しない）
+        ScoreboardObjective virtualObjective = new VirtualObjective(
+            view.virtualObjectiveName,
+            originalObjective.getCriterion(),
+            Text.literal(displayName),
+            renderType
+        );
+        if (!view.created) {
+            ModMetrics.sendPacket(player, new ScoreboardObjectiveUpdateS2CPacket(virtualObjective, 0));
+            view.created = true;
+        } else if (!displayName.equals(view.displayName) || renderType != view.renderType) {
+            ModMetrics.sendPacket(player, new ScoreboardObjectiveUpdateS2CPacket(virtualObjective, 2));
+        }
+        view.displayName = displayName;
+        view.renderType = renderType;
+        return virtualObjective;
     }
     
-    // 差分変換スコアボード送信（パケット数削減）
-    private static void sendDifferentialTransformedScores(ServerPlayerEntity player, String virtualObjectiveName, 
-                                                         String originalObjectiveName, Map<String, Integer> scoreData, 
-                                                         ScoreboardTransformData transformData) {
+    // 表示するエントリを選び、送信済みの内容との差分を送信（パケット数削減）
+    private static void syncVisibleTransformedScores(ServerPlayerEntity player, TransformedView view) {
         // レート制限チェック（DDOS対策）
         if (!RateLimiter.canSendScoreboardPacket(player.getUuid())) {
             ServerScoreboardLogger.warn("Rate limit exceeded for transformed scoreboard for player " + player.getName().getString());
+            view.synced = false;
             return;
         }
         
-        String playerUuid = player.getUuidAsString();
-        
-        // プレイヤーの変換済みスコアキャッシュを取得または作成
-        Map<String, Map<String, Integer>> playerCache = transformedScoreCache.computeIfAbsent(playerUuid, k -> new ConcurrentHashMap<>());
-        Map<String, Integer> objectiveCache = playerCache.computeIfAbsent(originalObjectiveName, k -> new ConcurrentHashMap<>());
+        // 変換後のスコアで順位が決まるため、変換してから表示範囲を選ぶ（上位の選択は共有の変換結果ごとに1回）
+        SharedTransform shared = view.shared;
+        Map<String, Integer> visibleScores;
+        if (SidebarWindow.shouldApply(shared.transformed.size())) {
+            if (shared.ranking == null) {
+                shared.ranking = SidebarWindow.rank(shared.transformed);
+            }
+            visibleScores = SidebarWindow.selectVisible(shared.transformed, shared.ranking, player.getName().getString());
+        } else {
+            visibleScores = shared.transformed;
+        }
+        view.windowed = visibleScores.size() < shared.transformed.size();
         
-        Set<String> currentPlayerNames = new HashSet<>();
+        boolean complete = true;
         int updateCount = 0;
         int removeCount = 0;
+        int unchangedCount = 0;
         
         // 更新または新規追加された変換済みスコアのみを送信
-        for (Map.Entry<String, Integer> entry : scoreData.entrySet()) {
-            String playerName = entry.getKey();
-            int originalScore = entry.getValue();
-            int transformedScore = transformData.getTransformedScoreValue(originalObjectiveName, playerName, originalScore);
-            currentPlayerNames.add(playerName);
-            
-            Integer cachedScore = objectiveCache.get(playerName);
-            if (cachedScore == null || !cachedScore.equals(transformedScore)) {
-                // 変更があった場合のみパケットを送信（レート制限チェック付き）
-                if (RateLimiter.canSendPacket(player.getUuid())) {
-                    player.networkHandler.sendPacket(new ScoreboardPlayerUpdateS2CPacket(
-                        ServerScoreboard.UpdateMode.CHANGE,
-                        virtualObjectiveName,
-                        playerName,
-                        transformedScore
-                    ));
-                    objectiveCache.put(playerName, transformedScore);
-                    updateCount++;
-                    ServerScoreboardLogger.debug("Updated transformed score: " + playerName + " = " + transformedScore + " (was: " + cachedScore + ")");
-                } else {
-                    ServerScoreboardLogger.debug("Skipped update due to rate limit: " + playerName);
-                }
+        for (Map.Entry<String, Integer> entry : visibleScores.entrySet()) {
+            if (entry.getValue().equals(view.sent.get(entry.getKey()))) {
+                unchangedCount++;
+                continue;
+            }
+            if (RateLimiter.canSendPacket(player.getUuid())) {
+                sendTransformedScore(player, view, entry.getKey(), entry.getValue());
+                updateCount++;
+            } else {
+                complete = false;
             }
         }
+        // 変化のないエントリは送信しない
+        ModMetrics.PACKETS_COALESCED.add(unchangedCount);
         
-        // 削除されたプレイヤーのスコアを削除
-        Set<String> cachedPlayerNames = new HashSet<>(objectiveCache.keySet());
-        for (String cachedPlayerName : cachedPlayerNames) {
-            if (!currentPlayerNames.contains(cachedPlayerName)) {
-                // プレイヤーが削除された場合（レート制限チェック付き）
-                if (RateLimiter.canSendPacket(player.getUuid())) {
-                    player.networkHandler.sendPacket(new ScoreboardPlayerUpdateS2CPacket(
-                        ServerScoreboard.UpdateMode.REMOVE,
-                        virtualObjectiveName,
-                        cachedPlayerName,
-                        0
-                    ));
-                    objectiveCache.remove(cachedPlayerName);
-                    removeCount++;
-                    ServerScoreboardLogger.debug("Removed transformed score: " + cachedPlayerName);
-                } else {
-                    ServerScoreboardLogger.debug("Skipped removal due to rate limit: " + cachedPlayerName);
-                }
+        // 削除されたスコア・表示範囲から外れたスコアを削除
+        for (String sentName : new ArrayList<>(view.sent.keySet())) {
+            if (visibleScores.containsKey(sentName)) continue;
+            if (RateLimiter.canSendPacket(player.getUuid())) {
+                sendTransformedScore(player, view, sentName, null);
+                removeCount++;
+            } else {
+                complete = false;
             }
         }
+        view.synced = complete;
         
-        if (updateCount > 0 || removeCount > 0) {
-            ServerScoreboardLogger.info("Sent differential transformed update for " + originalObjectiveName + " to " + player.getName().getString() + 
-                ": " + updateCount + " updates, " + removeCount + " removes (total scores: " + scoreData.size() + ")");
-            
-            // 変換済みスコアボード表示を確実に維持
-            MinecraftServer server = player.getServer();
-            if (server != null) {
-                ScoreboardObjective originalObjective = server.getScoreboard().getObjective(originalObjectiveName);
-                if (originalObjective != null) {
-                    ScoreboardObjective virtualObjective = new VirtualObjective(
-                        virtualObjectiveName,
-                        originalObjective.getCriterion(),
-                        originalObjective.getDisplayName(),
-                        originalObjective.getRenderType()
-                    );
-                    player.networkHandler.sendPacket(new ScoreboardDisplayS2CPacket(1, virtualObjective));
-                }
-            }
+        if ((updateCount > 0 || removeCount > 0) && ServerScoreboardLogger.isDebugEnabled()) {
+            ServerScoreboardLogger.debug("Sent differential transformed update for " + shared.transform.objectiveName + " to " + player.getName().getString() + 
+                ": " + updateCount + " updates, " + removeCount + " removes (visible: " + visibleScores.size() + ", total scores: " + shared.transformed.size() + ")");
+        }
+    }
+    
+    // 1エントリ分のスコアを送信（scoreがnullの場合は削除）
+    private static void sendTransformedScore(ServerPlayerEntity player, TransformedView view, String entryName, Integer score) {
+        if (score != null) {
+            ModMetrics.sendPacket(player, new ScoreboardPlayerUpdateS2CPacket(
+                ServerScoreboard.UpdateMode.CHANGE, view.virtualObjectiveName, entryName, score));
+            view.sent.put(entryName, score);
+        } else {
+            ModMetrics.sendPacket(player, new ScoreboardPlayerUpdateS2CPacket(
+                ServerScoreboard.UpdateMode.REMOVE, view.virtualObjectiveName, entryName, 0));
+            view.sent.remove(entryName);
         }
     }
     
+    private static String virtualObjectiveName(ServerPlayerEntity player) {
+        return "mysb_virtual_" + player.getUuidAsString().substring(0, 8);
+    }
+    
     // 仮想オブジェクティブクラス（サーバー側スコアボードに影響しない）
-    private static class VirtualObjective extends ScoreboardObjective {
+    static class VirtualObjective extends ScoreboardObjective {
         public VirtualObjective(String name, ScoreboardCriterion criterion, Text displayName, ScoreboardCriterion.RenderType renderType) {
             super(null, name, criterion, displayName, renderType);
         }
     }
     
     public static void clearTransformedScoreboard(ServerPlayerEntity player) {
-        String virtualObjectiveName = "mysb_virtual_" + player.getUuidAsString().substring(0, 8);
-        
-        // 仮想オブジェクティブを作成してクリアパケットを送信
-        ScoreboardObjective virtualObjective = new VirtualObjective(
-            virtualObjectiveName,
-            ScoreboardCriterion.DUMMY,
-            Text.literal(""),
-            ScoreboardCriterion.RenderType.INTEGER
-        );
-        
         // サイドバーをクリア
-        player.networkHandler.sendPacket(new ScoreboardDisplayS2CPacket(1, null));
-        
-        // クライアント側のオブジェクティブを削除
-        player.networkHandler.sendPacket(new ScoreboardObjectiveUpdateS2CPacket(virtualObjective, 1));
+        ModMetrics.sendPacket(player, new ScoreboardDisplayS2CPacket(1, null));
+        removeTransformedView(player);
         
         ServerScoreboardLogger.info("Cleared virtual transformed scoreboard for player " + player.getName().getString());
-        
-        // 変換済みスコアキャッシュをクリア
-        clearTransformedScoreCache(player.getUuidAsString());
     }
     
-    // プレイヤーの変換済みスコアキャッシュをクリア
-    public static void clearTransformedScoreCache(String playerUuid) {
-        transformedScoreCache.remove(playerUuid);
-        ServerScoreboardLogger.debug("Cleared transformed score cache for player: " + playerUuid);
+    /**
+     * 変換済みスコアボードの表示をやめ、クライアントの仮想オブジェクティブを削除（サイドバーの表示は変更しない）
+     */
+    public static void removeTransformedView(ServerPlayerEntity player) {
+        TransformedView view = transformedViews.remove(player.getUuid());
+        if (view != null) {
+            releaseSharedTransform(view.shared, player.getUuid());
+        }
+        if (view != null && view.created) {
+            ScoreboardObjective virtualObjective = new VirtualObjective(
+                view.virtualObjectiveName,
+                ScoreboardCriterion.DUMMY,
+                Text.literal(""),
+                ScoreboardCriterion.RenderType.INTEGER
+            );
+            // クライアント側のオブジェクティブを削除
+            ModMetrics.sendPacket(player, new ScoreboardObjectiveUpdateS2CPacket(virtualObjective, 1));
+        }
     }
     
-    // 特定のオブジェクティブの変換済みキャッシュをクリア
-    public static void clearTransformedObjectiveCache(String objectiveName) {
-        for (Map<String, Map<String, Integer>> playerCache : transformedScoreCache.values()) {
-            playerCache.remove(objectiveName);
-        }
-        ServerScoreboardLogger.debug("Cleared transformed cache for objective: " + objectiveName);
+    public static int getTransformedViewCount() {
+        return transformedViews.size();
+    }
+    
+    public static int getSharedTransformCount() {
+        return sharedTransforms.size();
     }
     
-    // カスタムスコアボード機能（既存）
+    // カスタムスコアボード機能
+    // サーバーのスコアボードには登録せず、プレイヤーごとの仮想オブジェクティブをパケットのみで送信する
+    // 全体を送信する（初回表示・再接続・表示名の変更時）
     public static void sendCustomScoreboard(ServerPlayerEntity player, CustomScoreboardData data) {
         if (!data.isEnabled()) {
             clearCustomScoreboard(player);
             return;
         }
         
-        MinecraftServer server = player.getServer();
-        if (server == null) return;
-        
-        String objectiveName = "mysb_custom_" + player.getUuidAsString().substring(0, 8);
+        UUID playerId = player.getUuid();
         Text displayName = Text.literal(data.getCustomDisplayName() != null ? data.getCustomDisplayName() : "Custom Scoreboard");
-        
-        ServerScoreboard scoreboard = server.getScoreboard();
-        
-        // 既存のオブジェクティブを削除
-        ScoreboardObjective existingObjective = scoreboard.getObjective(objectiveName);
-        if (existingObjective != null) {
-            scoreboard.removeObjective(existingObjective);
-        }
-        
-        // 新しいオブジェクティブを作成
-        ScoreboardObjective objective = scoreboard.addObjective(
-            objectiveName,
+        CustomBoardState state = new CustomBoardState(new VirtualObjective(
+            customObjectiveName(player),
             ScoreboardCriterion.DUMMY,
             displayName,
             ScoreboardCriterion.RenderType.INTEGER
-        );
+        ));
+        CustomBoardState previous = customBoards.put(playerId, state);
+        if (previous != null) {
+            // レート制限で送信できなくても、クライアントに残っているオブジェクティブを次の送信で削除できるようにする
+            state.created = previous.created;
+        }
         
         // プレイヤーにオブジェクティブを送信（レート制限付き）
-        if (RateLimiter.canSendPacket(player.getUuid())) {
-            player.networkHandler.sendPacket(new ScoreboardObjectiveUpdateS2CPacket(objective, 0));
-            
-            // サイドバーに表示
-            player.networkHandler.sendPacket(new ScoreboardDisplayS2CPacket(1, objective));
-        } else {
+        if (!RateLimiter.canSendPacket(playerId)) {
             ServerScoreboardLogger.warn("Cannot send custom scoreboard due to rate limit for player " + player.getName().getString());
             return;
         }
+        if (previous != null && previous.created) {
+            // クライアントに残っている以前のオブジェクティブ（古いエントリごと）を削除してから作り直す
+            ModMetrics.sendPacket(player, new ScoreboardObjectiveUpdateS2CPacket(previous.objective, 1));
+        }
+        ModMetrics.sendPacket(player, new ScoreboardObjectiveUpdateS2CPacket(state.objective, 0));
+        state.created = true;
+        
+        // サイドバーに表示
+        ModMetrics.sendPacket(player, new ScoreboardDisplayS2CPacket(1, state.objective));
         
         // カスタムスコアを送信（レート制限付き）
+        String objectiveName = state.objective.getName();
+        boolean complete = true;
         for (Map.Entry<String, Integer> entry : data.getCustomScores().entrySet()) {
-            if (RateLimiter.canSendPacket(player.getUuid())) {
-                scoreboard.getPlayerScore(entry.getKey(), objective).setScore(entry.getValue());
-                player.networkHandler.sendPacket(new ScoreboardPlayerUpdateS2CPacket(
+            if (RateLimiter.canSendPacket(playerId)) {
+                ModMetrics.sendPacket(player, new ScoreboardPlayerUpdateS2CPacket(
                     ServerScoreboard.UpdateMode.CHANGE,
                     objectiveName,
                     entry.getKey(),
                     entry.getValue()
                 ));
             } else {
-                ServerScoreboardLogger.debug("Skipped custom score due to rate limit: " + entry.getKey());
+                if (ServerScoreboardLogger.isDebugEnabled()) {
+                    ServerScoreboardLogger.debug("Skipped custom score due to rate limit: " + entry.getKey());
+                }
+                complete = false;
                 break; // レート制限に達したら停止
             }
         }
         
+        // 途中で止まった場合は次の変更時にもう一度全体を送信する
+        state.synced = complete;
         ServerScoreboardLogger.info("Sent custom scoreboard to player " + player.getName().getString());
     }
     
-    public static void clearCustomScoreboard(ServerPlayerEntity player) {
-        MinecraftServer server = player.getServer();
-        if (server == null) return;
+    /**
+     * カスタムスコアボードの1エントリの変更を送信（オブジェクティブは作り直さない）
+     * 全体をまだ送信していない場合は全体を送信する
+     * @param entryName 変更したエントリ名
+     * @param score 新しいスコア（削除の場合はnull）
+     */
+    public static void sendCustomScoreChange(ServerPlayerEntity player, CustomScoreboardData data, String entryName, Integer score) {
+        CustomBoardState state = customBoards.get(player.getUuid());
+        if (!data.isEnabled() || state == null || !state.synced) {
+            sendCustomScoreboard(player, data);
+            return;
+        }
         
-        String objectiveName = "mysb_custom_" + player.getUuidAsString().substring(0, 8);
-        ServerScoreboard scoreboard = server.getScoreboard();
+        if (!RateLimiter.canSendPacket(player.getUuid())) {
+            // 送信できなかった変更は次回の全体送信で反映する
+            state.synced = false;
+            if (ServerScoreboardLogger.isDebugEnabled()) {
+                ServerScoreboardLogger.debug("Skipped custom score change due to rate limit: " + entryName);
+            }
+            return;
+        }
         
-        ScoreboardObjective objective = scoreboard.getObjective(objectiveName);
-        if (objective != null) {
-            player.networkHandler.sendPacket(new ScoreboardDisplayS2CPacket(1, null));
-            player.networkHandler.sendPacket(new ScoreboardObjectiveUpdateS2CPacket(objective, 1));
-            scoreboard.removeObjective(objective);
+        ModMetrics.sendPacket(player, new ScoreboardPlayerUpdateS2CPacket(
+            score == null ? ServerScoreboard.UpdateMode.REMOVE : ServerScoreboard.UpdateMode.CHANGE,
+            state.objective.getName(),
+            entryName,
+            score == null ? 0 : score
+        ));
+    }
+    
+    // 切断時に送信済みの状態を破棄（再接続時は全体を送信する）
+    public static void onPlayerDisconnect(UUID playerId) {
+        customBoards.remove(playerId);
+        TransformedView view = transformedViews.remove(playerId);
+        if (view != null) {
+            releaseSharedTransform(view.shared, playerId);
+        }
+    }
+    
+    public static void clearCustomScoreboard(ServerPlayerEntity player) {
+        CustomBoardState state = customBoards.remove(player.getUuid());
+        if (state != null && state.created) {
+            ModMetrics.sendPacket(player, new ScoreboardDisplayS2CPacket(1, null));
+            ModMetrics.sendPacket(player, new ScoreboardObjectiveUpdateS2CPacket(state.objective, 1));
         }
         
         ServerScoreboardLogger.info("Cleared custom scoreboard for player " + player.getName().getString());
     }
+    
+    /**
+     * カスタムスコアボードを表示中のプレイヤー数
+     */
+    public static int getCustomBoardCount() {
+        return customBoards.size();
+    }
+    
+    private static String customObjectiveName(ServerPlayerEntity player) {
+        return CUSTOM_OBJECTIVE_PREFIX + player.getUuidAsString().substring(0, 8);
+    }
+    
+    /**
+     * customObjectiveNameの形式（接頭辞 + UUIDの先頭8桁）か
+     * 以前のバージョンが登録したオブジェクティブと、管理者が作成した同じ接頭辞のオブジェクティブを区別する
+     */
+    public static boolean isLegacyCustomObjectiveName(String objectiveName) {
+        if (objectiveName.length() != CUSTOM_OBJECTIVE_PREFIX.length() + 8 || !objectiveName.startsWith(CUSTOM_OBJECTIVE_PREFIX)) {
+            return false;
+        }
+        for (int i = CUSTOM_OBJECTIVE_PREFIX.length(); i < objectiveName.length(); i++) {
+            char c = objectiveName.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 変換式のscore(...)が参照するスコア（エントリを切り替えながら使い回す）
+    private static final class EntryScores implements ScoreExpression.ScoreSource {
+        private final ServerScoreboard scoreboard;
+        private final ScoreboardObjective[] objectives;
+        String entry;
+
+        private EntryScores(ServerScoreboard scoreboard, ScoreboardObjective[] objectives) {
+            this.scoreboard = scoreboard;
+            this.objectives = objectives;
+        }
+
+        static EntryScores create(MinecraftServer server, ScoreExpression expression) {
+            if (server == null) return null;
+            ServerScoreboard scoreboard = server.getScoreboard();
+            List<String> names = expression.getReferencedObjectives();
+            ScoreboardObjective[] objectives = new ScoreboardObjective[names.size()];
+            for (int i = 0; i < objectives.length; i++) {
+                objectives[i] = scoreboard.getObjective(names.get(i));
+            }
+            return new EntryScores(scoreboard, objectives);
+        }
+
+        @Override
+        public int score(int slot) {
+            ScoreboardObjective objective = objectives[slot];
+            // getPlayerScoreはエントリを作成してしまうため、先に存在を確認する
+            if (objective == null || entry == null || !scoreboard.playerHasObjective(entry, objective)) {
+                return 0;
+            }
+            return scoreboard.getPlayerScore(entry, objective).getScore();
+        }
+    }
 }
\ No newline at end of file
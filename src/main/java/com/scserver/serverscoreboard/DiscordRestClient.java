@@ -0,0 +1,444 @@
+package com.scserver.serverscoreboard;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Discord REST APIの送信キュー
+ * X-RateLimit-Bucketヘッダーで分かったバケットごと（分かるまではルートごと）にX-RateLimit-*ヘッダーに従って送信し、
+ * 429やサーバーエラーは待ってから再送する
+ * 同じメッセージへの編集が送信待ちの間に重なった場合は、最新の内容1回にまとめる
+ * ベースURLは差し替え可能（ローカルのスタブサーバーで動作確認できる）
+ */
+public class DiscordRestClient {
+    public static final String DEFAULT_BASE_URL = "https://discord.com/api/v10";
+    private static final int MAX_RETRIES = 3; // 通信エラー・5xxの再送回数
+    private static final int MAX_RATE_LIMIT_RETRIES = 5; // 429の再送回数
+    private static final long BASE_BACKOFF_MS = 1000;
+    private static final long REQUEST_TIMEOUT_MS = 10000; // 1回の送信のタイムアウト
+    private static final long CALL_TIMEOUT_MS = 30000; // 待機・再送を含めた1件あたりの上限
+    private static final long PRUNE_INTERVAL_MS = 60000; // 使われていないバケットを破棄する間隔
+
+    private static final ModMetrics.Counter REQUESTS = ModMetrics.counter("discord_requests", "Discord REST リクエスト");
+    private static final ModMetrics.Counter RATE_LIMITED = ModMetrics.counter("discord_rate_limited", "Discord 429応答");
+    private static final ModMetrics.Counter COALESCED = ModMetrics.counter("discord_coalesced", "Discord 編集の統合");
+
+    private final HttpClient httpClient;
+    private final ScheduledExecutorService scheduler;
+    private final String baseUrl;
+    private final String botToken;
+    // バケットのキー -> バケット（キーはバケットID + 主要パラメータ、バケットIDが分かるまではルート）
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    // ルート -> バケットのキー（応答のX-RateLimit-Bucketヘッダーから）
+    private final Map<String, String> routeBuckets = new ConcurrentHashMap<>();
+    private volatile long lastPrunedAt = 0;
+    // グローバルレート制限の解除時刻（ミリ秒）
+    private volatile long globalResetAt = 0;
+
+    public DiscordRestClient(HttpClient httpClient, ScheduledExecutorService scheduler, String baseUrl, String botToken) {
+        this.httpClient = httpClient;
+        this.scheduler = scheduler;
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.botToken = botToken;
+    }
+
+    private static final class PendingRequest {
+        final String method;
+        final String path;
+        final String route;
+        final boolean authorize;
+        final String coalesceKey;
+        final CompletableFuture<HttpResponse<String>> future = new CompletableFuture<>();
+        volatile String body;
+        int attempts = 0;
+        int rateLimitRetries = 0;
+
+        PendingRequest(String method, String path, String body, boolean authorize, String coalesceKey) {
+            this.method = method;
+            this.path = path;
+            this.route = routeKey(method, path);
+            this.body = body;
+            this.authorize = authorize;
+            this.coalesceKey = coalesceKey;
+        }
+    }
+
+    // バケットごとの送信状態（同じバケットは1件ずつ送信する）
+    private static final class Bucket {
+        final String key;
+        final ArrayDeque<PendingRequest> queue = new ArrayDeque<>();
+        boolean inFlight = false;
+        boolean drainScheduled = false;
+        // 破棄済み（新しいリクエストは入れずに取り直す）
+        boolean evicted = false;
+        int remaining = 1;
+        long resetAt = 0;
+
+        Bucket(String key) {
+            this.key = key;
+        }
+
+        boolean isIdle(long now) {
+            return !inFlight && !drainScheduled && queue.isEmpty() && resetAt <= now;
+        }
+    }
+
+    public CompletableFuture<HttpResponse<String>> get(String path) {
+        return request("GET", path, null, true, null);
+    }
+
+    public CompletableFuture<HttpResponse<String>> post(String path, String body) {
+        return request("POST", path, body, true, null);
+    }
+
+    public CompletableFuture<HttpResponse<String>> put(String path, String body) {
+        return request("PUT", path, body, true, null);
+    }
+
+    /**
+     * メッセージを編集（同じメッセージへの送信待ちの編集は最新の内容にまとめる）
+     */
+    public CompletableFuture<HttpResponse<String>> patch(String path, String body) {
+        return request("PATCH", path, body, true, "PATCH " + path);
+    }
+
+    /**
+     * リクエストをキューに追加
+     * @param method HTTPメソッド
+     * @param path ベースURLからのパス（/channels/...）
+     * @param body JSON本文（なければnull）
+     * @param authorize Botトークンを付けるか（インタラクションの応答は不要）
+     * @param coalesceKey 送信待ちのリクエストをまとめるキー（まとめない場合はnull）
+     * @return 最終的な応答（再送後の応答、まとめられた場合は後の内容での応答）
+     *         上限時間内に完了しない場合はTimeoutExceptionで完了する
+     */
+    public CompletableFuture<HttpResponse<String>> request(String method, String path, String body, boolean authorize, String coalesceKey) {
+        pruneIdleBuckets();
+        String route = routeKey(method, path);
+        Bucket bucket;
+        PendingRequest request;
+        while (true) {
+            bucket = buckets.computeIfAbsent(routeBuckets.getOrDefault(route, route), Bucket::new);
+            synchronized (bucket) {
+                if (!bucket.evicted) {
+                    break;
+                }
+            }
+        }
+        synchronized (bucket) {
+            if (coalesceKey != null) {
+                for (Iterator<PendingRequest> it = bucket.queue.iterator(); it.hasNext(); ) {
+                    PendingRequest pending = it.next();
+                    if (pending.future.isDone()) {
+                        // 上限時間を過ぎたリクエストは送信されないため、まとめずに取り除く
+                        it.remove();
+                        continue;
+                    }
+                    if (coalesceKey.equals(pending.coalesceKey)) {
+                        // まだ送信していない編集を最新の内容に置き換える
+                        pending.body = body;
+                        COALESCED.increment();
+                        return pending.future;
+                    }
+                }
+            }
+            request = new PendingRequest(method, path, body, authorize, coalesceKey);
+            request.future.orTimeout(CALL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            bucket.queue.add(request);
+        }
+        drain(bucket);
+        return request.future;
+    }
+
+    private void drain(Bucket bucket) {
+        PendingRequest next;
+        synchronized (bucket) {
+            if (bucket.inFlight || bucket.drainScheduled || bucket.queue.isEmpty()) {
+                return;
+            }
+
+            long now = System.currentTimeMillis();
+            if (bucket.remaining <= 0 && bucket.resetAt <= now) {
+                bucket.remaining = 1;
+            }
+            long waitUntil = Math.max(globalResetAt, bucket.remaining <= 0 ? bucket.resetAt : 0);
+            if (waitUntil > now) {
+                // 制限が解除されるまで待つ
+                bucket.drainScheduled = true;
+                scheduler.schedule(() -> {
+                    synchronized (bucket) {
+                        bucket.drainScheduled = false;
+                    }
+                    drain(bucket);
+                }, waitUntil - now, TimeUnit.MILLISECONDS);
+                return;
+            }
+
+            next = bucket.queue.poll();
+            bucket.inFlight = true;
+            bucket.remaining--;
+        }
+        send(bucket, next);
+    }
+
+    private void send(Bucket bucket, PendingRequest request) {
+        if (request.future.isDone()) {
+            // 上限時間を過ぎたリクエストは送信しない
+            finish(bucket);
+            return;
+        }
+
+        HttpRequest httpRequest;
+        try {
+            HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + request.path))
+                .timeout(Duration.ofMillis(REQUEST_TIMEOUT_MS));
+            if (request.authorize) {
+                builder.header("Authorization", "Bot " + botToken);
+            }
+            String body = request.body;
+            if (body != null) {
+                builder.header("Content-Type", "application/json");
+                builder.method(request.method, HttpRequest.BodyPublishers.ofString(body));
+            } else {
+                builder.method(request.method, HttpRequest.BodyPublishers.noBody());
+            }
+            httpRequest = builder.build();
+        } catch (Exception e) {
+            request.future.completeExceptionally(e);
+            finish(bucket);
+            return;
+        }
+
+        REQUESTS.increment();
+        httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofString())
+            .whenComplete((response, error) -> {
+                try {
+                    handleResponse(bucket, request, response, error);
+                } catch (Exception e) {
+                    request.future.completeExceptionally(e);
+                    finish(bucket);
+                }
+            });
+    }
+
+    private void handleResponse(Bucket bucket, PendingRequest request, HttpResponse<String> response, Throwable error) {
+        if (error != null) {
+            if (request.attempts < MAX_RETRIES) {
+                retryLater(bucket, request, backoff(request.attempts++));
+                return;
+            }
+            ServerScoreboardLogger.warn("Discord request failed: " + request.route + " (" + describe(error) + ")");
+            request.future.completeExceptionally(error);
+            finish(bucket);
+            return;
+        }
+
+        updateLimits(bucket, response.headers());
+        assignBucket(request.route, response.headers());
+
+        if (response.statusCode() == 429) {
+            RATE_LIMITED.increment();
+            long retryAfter = retryAfterMillis(response);
+            boolean global = response.headers().firstValue("X-RateLimit-Global").map("true"::equalsIgnoreCase).orElse(false);
+            if (global) {
+                globalResetAt = System.currentTimeMillis() + retryAfter;
+            } else {
+                synchronized (bucket) {
+                    bucket.remaining = 0;
+                    bucket.resetAt = System.currentTimeMillis() + retryAfter;
+                }
+            }
+            ServerScoreboardLogger.warn("Discord rate limited on " + request.route + ", retrying in " + retryAfter + "ms" + (global ? " (global)" : ""));
+            if (request.rateLimitRetries++ < MAX_RATE_LIMIT_RETRIES) {
+                retryLater(bucket, request, retryAfter);
+                return;
+            }
+        } else if (response.statusCode() >= 500 && request.attempts < MAX_RETRIES) {
+            retryLater(bucket, request, backoff(request.attempts++));
+            return;
+        }
+
+        request.future.complete(response);
+        finish(bucket);
+    }
+
+    // バケットを使用中のまま待ってから同じリクエストを再送
+    private void retryLater(Bucket bucket, PendingRequest request, long delayMs) {
+        scheduler.schedule(() -> send(bucket, request), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void finish(Bucket bucket) {
+        synchronized (bucket) {
+            bucket.inFlight = false;
+        }
+        drain(bucket);
+    }
+
+    /**
+     * 応答のX-RateLimit-Bucketヘッダーからルートのバケットを記録する
+     * 以降のこのルートのリクエストは、同じバケットの他のルートと同じキューで送信する
+     * （送信待ちのリクエストは今のバケットで送信し終える）
+     */
+    private void assignBucket(String route, HttpHeaders headers) {
+        String bucketId = headers.firstValue("X-RateLimit-Bucket").orElse(null);
+        if (bucketId == null || bucketId.isEmpty()) {
+            return;
+        }
+        String key = bucketId + " " + majorParameter(route);
+        if (!key.equals(routeBuckets.put(route, key))) {
+            // 共有のバケットにも今回の残り回数を反映する
+            updateLimits(buckets.computeIfAbsent(key, Bucket::new), headers);
+        }
+    }
+
+    /**
+     * 使われていないバケットを破棄（一定間隔ごと）
+     * 送信待ちがなく、レート制限の解除時刻を過ぎたバケットのみ破棄し、次に使うときに作り直す
+     */
+    private void pruneIdleBuckets() {
+        long now = System.currentTimeMillis();
+        if (now - lastPrunedAt < PRUNE_INTERVAL_MS) {
+            return;
+        }
+        lastPrunedAt = now;
+        for (Bucket bucket : buckets.values()) {
+            synchronized (bucket) {
+                if (bucket.isIdle(now)) {
+                    bucket.evicted = true;
+                    buckets.remove(bucket.key, bucket);
+                }
+            }
+        }
+        routeBuckets.values().removeIf(key -> !buckets.containsKey(key));
+    }
+
+    private void updateLimits(Bucket bucket, HttpHeaders headers) {
+        String remaining = headers.firstValue("X-RateLimit-Remaining").orElse(null);
+        String resetAfter = headers.firstValue("X-RateLimit-Reset-After").orElse(null);
+        if (remaining == null || resetAfter == null) {
+            return;
+        }
+        try {
+            int remainingValue = Integer.parseInt(remaining);
+            long resetAt = System.currentTimeMillis() + (long) Math.ceil(Double.parseDouble(resetAfter) * 1000);
+            synchronized (bucket) {
+                bucket.remaining = remainingValue;
+                bucket.resetAt = resetAt;
+            }
+        } catch (NumberFormatException e) {
+            // 不正なヘッダーは無視
+        }
+    }
+
+    private static long retryAfterMillis(HttpResponse<String> response) {
+        try {
+            JsonObject body = JsonParser.parseString(response.body()).getAsJsonObject();
+            if (body.has("retry_after")) {
+                return (long) Math.ceil(body.get("retry_after").getAsDouble() * 1000);
+            }
+        } catch (Exception e) {
+            // 本文がJSONでない場合はヘッダーを使う
+        }
+        return response.headers().firstValue("Retry-After")
+            .map(value -> {
+                try {
+                    return (long) Math.ceil(Double.parseDouble(value) * 1000);
+                } catch (NumberFormatException e) {
+                    return BASE_BACKOFF_MS;
+                }
+            })
+            .orElse(BASE_BACKOFF_MS);
+    }
+
+    /**
+     * 非同期処理の例外からログ・表示用のメッセージを取り出す
+     */
+    static String describe(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof TimeoutException) {
+            return "タイムアウトしました";
+        }
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+
+    private static long backoff(int attempt) {
+        return BASE_BACKOFF_MS << Math.min(attempt, 5);
+    }
+
+    /**
+     * レート制限のルートを求める
+     * チャンネル・ギルド・Webhookの最初のIDはルートに含め、それ以外のIDは置き換える
+     */
+    static String routeKey(String method, String path) {
+        String[] segments = path.split("/");
+        StringBuilder sb = new StringBuilder(method).append(' ');
+        boolean majorFound = false;
+        int interactionSegments = 0;
+        for (int i = 1; i < segments.length; i++) {
+            String segment = segments[i];
+            String previous = segments[i - 1];
+            sb.append('/');
+            if (interactionSegments > 0) {
+                // インタラクションIDとトークン
+                sb.append("{id}");
+                interactionSegments--;
+            } else if (!majorFound && (previous.equals("channels") || previous.equals("guilds") || previous.equals("webhooks"))) {
+                sb.append(segment);
+                majorFound = true;
+            } else if (isSnowflake(segment)) {
+                sb.append("{id}");
+            } else {
+                sb.append(segment);
+                if (segment.equals("interactions")) {
+                    interactionSegments = 2;
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    // ルートの主要パラメータ（チャンネル・ギルド・WebhookのID、なければ空文字）
+    private static String majorParameter(String route) {
+        String[] segments = route.split("/");
+        for (int i = 1; i < segments.length; i++) {
+            String previous = segments[i - 1];
+            if (previous.equals("channels") || previous.equals("guilds") || previous.equals("webhooks")) {
+                return previous + "/" + segments[i];
+            }
+        }
+        return "";
+    }
+
+    private static boolean isSnowflake(String segment) {
+        if (segment.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < segment.length(); i++) {
+            if (!Character.isDigit(segment.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
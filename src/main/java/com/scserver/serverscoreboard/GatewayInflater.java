@@ -0,0 +1,94 @@
+package com.scserver.serverscoreboard;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Discord Gatewayのzlib-stream圧縮の展開
+ * 1つの接続の間は同じInflaterを使い続け（圧縮辞書は接続全体で共有される）、
+ * 受信データがZ_SYNC_FLUSHの末尾（00 00 FF FF）で終わった時点で1メッセージとして展開する
+ * 入出力のバッファは使い回し、大きなメッセージで拡張した場合は次のメッセージの前に縮める
+ */
+public class GatewayInflater {
+    private static final int INITIAL_INPUT_SIZE = 8 * 1024;
+    private static final int INITIAL_OUTPUT_SIZE = 32 * 1024;
+    // これより大きく拡張したバッファは保持しない（GUILD_CREATEなどの一時的な大きなメッセージ）
+    private static final int MAX_RETAINED_SIZE = 1024 * 1024;
+
+    private final Inflater inflater = new Inflater();
+    private byte[] input = new byte[INITIAL_INPUT_SIZE];
+    private int inputLength = 0;
+    private byte[] output = new byte[INITIAL_OUTPUT_SIZE];
+
+    /**
+     * 受信したバイナリフレームを追加
+     * @param data フレームのデータ（メッセージの途中の断片でもよい）
+     * @return 展開したメッセージ（末尾に達していない場合はnull）
+     * @throws DataFormatException 圧縮データが壊れている場合（接続をやり直す必要がある）
+     */
+    public String feed(ByteBuffer data) throws DataFormatException {
+        append(data);
+        if (!endsWithSyncFlush()) {
+            return null;
+        }
+
+        inflater.setInput(input, 0, inputLength);
+        int length = 0;
+        while (true) {
+            if (length == output.length) {
+                output = Arrays.copyOf(output, output.length * 2);
+            }
+            int inflated = inflater.inflate(output, length, output.length - length);
+            length += inflated;
+            if (inflated == 0 && (inflater.needsInput() || inflater.finished())) {
+                break;
+            }
+            if (inflated == 0 && inflater.needsDictionary()) {
+                throw new DataFormatException("Preset dictionary is not supported");
+            }
+        }
+
+        String message = new String(output, 0, length, StandardCharsets.UTF_8);
+        inputLength = 0;
+        shrinkBuffers();
+        return message;
+    }
+
+    /**
+     * 新しい接続用に圧縮状態を初期化（再接続時に呼び出す）
+     */
+    public void reset() {
+        inflater.reset();
+        inputLength = 0;
+        shrinkBuffers();
+    }
+
+    private void append(ByteBuffer data) {
+        int remaining = data.remaining();
+        if (inputLength + remaining > input.length) {
+            input = Arrays.copyOf(input, Math.max(input.length * 2, inputLength + remaining));
+        }
+        data.get(input, inputLength, remaining);
+        inputLength += remaining;
+    }
+
+    private boolean endsWithSyncFlush() {
+        return inputLength >= 4
+            && input[inputLength - 4] == 0x00
+            && input[inputLength - 3] == 0x00
+            && input[inputLength - 2] == (byte) 0xFF
+            && input[inputLength - 1] == (byte) 0xFF;
+    }
+
+    private void shrinkBuffers() {
+        if (input.length > MAX_RETAINED_SIZE) {
+            input = new byte[INITIAL_INPUT_SIZE];
+        }
+        if (output.length > MAX_RETAINED_SIZE) {
+            output = new byte[INITIAL_OUTPUT_SIZE];
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.scserver.serverscoreboard;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Set;
+
+/**
+ * Discord Gatewayのメッセージ（op / s / t / d）
+ * JsonReaderでop・s・tを先に読み、dは処理するイベントの場合のみJsonObjectにする
+ * GUILD_CREATEなど処理しないイベントのdは読み飛ばすため、大きなツリーを作らない
+ */
+public final class GatewayPayload {
+    // dが必要なDispatchイベント
+    private static final Set<String> HANDLED_EVENTS = Set.of("READY", "RESUMED", "INTERACTION_CREATE");
+    private static final int OP_DISPATCH = 0;
+    private static final int OP_HELLO = 10;
+
+    public final int op;
+    // シーケンス番号（含まれない場合は-1）
+    public final int sequence;
+    // イベント名（Dispatch以外はnull）
+    public final String type;
+    // 処理するメッセージのd（それ以外はnull）
+    public final JsonObject data;
+
+    private GatewayPayload(int op, int sequence, String type, JsonObject data) {
+        this.op = op;
+        this.sequence = sequence;
+        this.type = type;
+        this.data = data;
+    }
+
+    /**
+     * dを処理するメッセージか（Hello、または処理対象のDispatchイベント）
+     */
+    public static boolean needsData(int op, String type) {
+        return op == OP_HELLO || (op == OP_DISPATCH && type != null && HANDLED_EVENTS.contains(type));
+    }
+
+    /**
+     * メッセージを解析
+     * @param message Gatewayから受信したJSON
+     * @throws IOException JSONが不正な場合
+     */
+    public static GatewayPayload parse(String message) throws IOException {
+        int op = -1;
+        int sequence = -1;
+        String type = null;
+        JsonObject data = null;
+        boolean dataSkipped = false;
+
+        try (JsonReader reader = new JsonReader(new StringReader(message))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                switch (name) {
+                    case "op":
+                        op = reader.nextInt();
+                        break;
+                    case "s":
+                        if (reader.peek() == JsonToken.NULL) {
+                            reader.nextNull();
+                        } else {
+                            sequence = reader.nextInt();
+                        }
+                        break;
+                    case "t":
+                        if (reader.peek() == JsonToken.NULL) {
+                            reader.nextNull();
+                        } else {
+                            type = reader.nextString();
+                        }
+                        break;
+                    case "d":
+                        boolean known = op >= 0 && (op != OP_DISPATCH || type != null);
+                        if (!known) {
+                            // op・tより前にdがある場合は、判定できるまで読み飛ばしておく
+                            reader.skipValue();
+                            dataSkipped = true;
+                        } else if (needsData(op, type)) {
+                            data = readObject(reader);
+                        } else {
+                            // 処理しないメッセージのdはツリーを作らずに読み飛ばす
+                            reader.skipValue();
+                        }
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException("Malformed gateway message", e);
+        }
+
+        if (dataSkipped && needsData(op, type)) {
+            // まれなケース（dが先頭）のみ全体を解析し直す
+            JsonElement d = JsonParser.parseString(message).getAsJsonObject().get("d");
+            data = d != null && d.isJsonObject() ? d.getAsJsonObject() : null;
+        }
+        return new GatewayPayload(op, sequence, type, data);
+    }
+
+    private static JsonObject readObject(JsonReader reader) throws IOException {
+        JsonElement element = JsonParser.parseReader(reader);
+        return element.isJsonObject() ? element.getAsJsonObject() : null;
+    }
+}
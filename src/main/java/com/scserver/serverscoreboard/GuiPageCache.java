@@ -0,0 +1,264 @@
+package com.scserver.serverscoreboard;
+
+import net.minecraft.inventory.SimpleInventory;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.text.Text;
+import net.minecraft.util.Formatting;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * GUIのページ内容のキャッシュ
+ * ページの種類・ページ番号ごとに表示するアイテムを1回だけ作成し、開く・ページを切り替えるときはコピーして配置する
+ * オブジェクティブの追加・削除・表示名の変更や、統計の登録・有効/無効が変わった場合のみ作り直す
+ * 検索結果のページはObjectiveIndexから検索語ごとに作成する
+ */
+public class GuiPageCache {
+    public static final int GUI_SIZE = 54;
+    public static final int ITEMS_PER_PAGE = 27;
+    private static final int ITEM_START_SLOT = 27;
+
+    public enum PageType {
+        // プレイヤー用GUI
+        STATISTICS,
+        SCOREBOARD,
+        // 管理用GUI
+        ADMIN_STATS,
+        ADMIN_OBJECTIVES,
+        // 検索結果（キャッシュしない、getSearchPageで取得）
+        SEARCH
+    }
+
+    // ページの種類 -> ページ番号 -> ページ内容
+    private static final Map<PageType, Map<Integer, PageModel>> pages = new ConcurrentHashMap<>();
+
+    /**
+     * 1ページ分の表示内容（不変）
+     */
+    public static final class PageModel {
+        public final PageType type;
+        public final int page;
+        // 検索語（検索結果のページ以外はnull）
+        public final String query;
+        // このページに表示する項目（オブジェクティブ名または統計ID、スロット27から順に配置）
+        public final List<String> items;
+        public final boolean hasPrevious;
+        public final boolean hasNext;
+        private final long version;
+        private final ItemStack[] templates;
+
+        private PageModel(PageType type, int page, String query, long version, List<String> items, boolean hasNext, ItemStack[] templates) {
+            this.type = type;
+            this.page = page;
+            this.query = query;
+            this.version = version;
+            this.items = items;
+            this.hasPrevious = page > 0;
+            this.hasNext = hasNext;
+            this.templates = templates;
+        }
+
+        /**
+         * インベントリにページの内容を配置（アイテムはテンプレートのコピー）
+         */
+        public void applyTo(SimpleInventory inventory) {
+            for (int i = 0; i < GUI_SIZE; i++) {
+                ItemStack template = templates[i];
+                inventory.setStack(i, template != null ? template.copy() : ItemStack.EMPTY);
+            }
+        }
+
+        /**
+         * スロットに表示している項目を取得
+         * @return 項目（項目のスロットでない場合はnull）
+         */
+        public String getItem(int slotIndex) {
+            int index = slotIndex - ITEM_START_SLOT;
+            return index >= 0 && index < items.size() ? items.get(index) : null;
+        }
+    }
+
+    /**
+     * ページの内容を取得（キャッシュが古い場合のみ作り直す）
+     * @param page ページ番号（範囲外の場合は最後のページ）
+     */
+    public static PageModel getPage(MinecraftServer server, PageType type, int page) {
+        if (type == PageType.SEARCH) {
+            throw new IllegalArgumentException("Search pages are not cached, use getSearchPage");
+        }
+        ObjectiveIndex index = type == PageType.SCOREBOARD || type == PageType.ADMIN_OBJECTIVES ? ObjectiveIndex.get(server) : null;
+        long version = index != null ? index.version : TotalStatsManager.getStatsVersion();
+        Map<Integer, PageModel> typePages = pages.computeIfAbsent(type, k -> new ConcurrentHashMap<>());
+        PageModel cached = typePages.get(page);
+        if (cached != null && cached.version == version) {
+            return cached;
+        }
+
+        List<String> items = itemsOf(type, index);
+        int clampedPage = clampPage(page, items.size());
+        if (clampedPage != page) {
+            return getPage(server, type, clampedPage);
+        }
+
+        // 古いバージョンのページは破棄
+        typePages.values().removeIf(model -> model.version != version);
+        PageModel model = buildPage(type, page, null, version, items, index);
+        typePages.put(page, model);
+        return model;
+    }
+
+    /**
+     * 検索結果のページを取得（名前・表示名の部分一致、名前の前方一致が先）
+     * 検索はObjectiveIndexで行うため、オブジェクティブ数が多くても全件を並べ直さない
+     */
+    public static PageModel getSearchPage(MinecraftServer server, String query, int page) {
+        ObjectiveIndex index = ObjectiveIndex.get(server);
+        List<String> items = new ArrayList<>();
+        for (ObjectiveIndex.Entry entry : index.search(query, true, Integer.MAX_VALUE)) {
+            items.add(entry.name);
+        }
+        return buildPage(PageType.SEARCH, clampPage(page, items.size()), query, index.version, items, index);
+    }
+
+    private static int clampPage(int page, int itemCount) {
+        int lastPage = Math.max(0, (itemCount - 1) / ITEMS_PER_PAGE);
+        return Math.max(0, Math.min(page, lastPage));
+    }
+
+    public static int getCachedPageCount() {
+        int count = 0;
+        for (Map<Integer, PageModel> typePages : pages.values()) {
+            count += typePages.size();
+        }
+        return count;
+    }
+
+    public static void clearAll() {
+        pages.clear();
+    }
+
+    private static List<String> itemsOf(PageType type, ObjectiveIndex index) {
+        switch (type) {
+            case STATISTICS: {
+                // 有効なトータル統計のみ
+                List<String> totalStats = new ArrayList<>();
+                Set<String> enabledStats = TotalStatsManager.getEnabledStats();
+                for (String objective : TotalStatsManager.getAllTotalObjectives()) {
+                    String id = objective.substring(6); // Remove "total_" prefix
+                    if (enabledStats.contains(id)) {
+                        totalStats.add(objective);
+                    }
+                }
+                totalStats.sort(String::compareTo);
+                return totalStats;
+            }
+            case ADMIN_STATS: {
+                List<String> statIds = new ArrayList<>(TotalStatsManager.getAllAvailableStats().keySet());
+                statIds.sort(String::compareTo);
+                return statIds;
+            }
+            case SCOREBOARD:
+                return index.getNames(false);
+            default:
+                return index.getNames(true);
+        }
+    }
+
+    private static PageModel buildPage(PageType type, int page, String query, long version, List<String> allItems, ObjectiveIndex index) {
+        ItemStack[] templates = new ItemStack[GUI_SIZE];
+
+        switch (type) {
+            case STATISTICS:
+                templates[0] = named(Items.COMPASS, Text.literal("スコアボードを表示").formatted(Formatting.AQUA));
+                templates[2] = named(Items.NAME_TAG, Text.literal("検索").formatted(Formatting.AQUA));
+                templates[4] = named(Items.BARRIER, Text.literal("デフォルトにリセット").formatted(Formatting.YELLOW));
+                break;
+            case SCOREBOARD:
+                templates[0] = named(Items.BOOK, Text.literal("統計を表示").formatted(Formatting.AQUA));
+                templates[2] = named(Items.NAME_TAG, Text.literal("検索").formatted(Formatting.AQUA));
+                templates[4] = named(Items.BARRIER, Text.literal("デフォルトにリセット").formatted(Formatting.YELLOW));
+                break;
+            case SEARCH:
+                templates[0] = named(Items.COMPASS, Text.literal("スコアボード一覧へ戻る").formatted(Formatting.AQUA));
+                templates[2] = named(Items.NAME_TAG, Text.literal("検索: " + query + "（" + allItems.size() + "件）").formatted(Formatting.AQUA));
+                templates[4] = named(Items.BARRIER, Text.literal("デフォルトにリセット").formatted(Formatting.YELLOW));
+                break;
+            case ADMIN_STATS:
+                templates[0] = named(Items.COMPASS, Text.literal("スコアボード管理へ").formatted(Formatting.AQUA));
+                break;
+            case ADMIN_OBJECTIVES:
+                templates[0] = named(Items.BOOK, Text.literal("統計管理へ").formatted(Formatting.AQUA));
+                break;
+        }
+        templates[8] = named(Items.REDSTONE, Text.literal("閉じる").formatted(Formatting.RED));
+
+        // Navigation
+        boolean hasNext = (page + 1) * ITEMS_PER_PAGE < allItems.size();
+        if (page > 0) {
+            templates[18] = named(Items.ARROW, Text.literal("前のページ").formatted(Formatting.AQUA));
+        }
+        if (hasNext) {
+            templates[26] = named(Items.ARROW, Text.literal("次のページ").formatted(Formatting.AQUA));
+        }
+
+        int startIndex = page * ITEMS_PER_PAGE;
+        int endIndex = Math.min(startIndex + ITEMS_PER_PAGE, allItems.size());
+        List<String> items = List.copyOf(allItems.subList(startIndex, endIndex));
+        Map<String, String> allStats = type == PageType.ADMIN_STATS ? TotalStatsManager.getAllAvailableStats() : null;
+        Set<String> enabledStats = type == PageType.ADMIN_STATS ? TotalStatsManager.getEnabledStats() : null;
+        for (int i = 0; i < items.size(); i++) {
+            String item = items.get(i);
+            ItemStack stack;
+            switch (type) {
+                case STATISTICS:
+                    stack = named(Items.GOLDEN_APPLE, Text.literal(TotalStatsManager.getTotalDisplayName(item))
+                            .formatted(Formatting.GOLD, Formatting.BOLD));
+                    break;
+                case ADMIN_STATS: {
+                    boolean isEnabled = enabledStats.contains(item);
+                    stack = named(isEnabled ? Items.GOLDEN_APPLE : Items.APPLE, Text.literal(allStats.getOrDefault(item, item))
+                            .formatted(isEnabled ? Formatting.GOLD : Formatting.GRAY));
+                    break;
+                }
+                case SEARCH: {
+                    // 表示名で一致した場合もわかるように、名前と異なる表示名は併記する
+                    String displayName = index.getDisplayName(item);
+                    Text name = displayName == null || displayName.equals(item)
+                            ? Text.literal(item).formatted(Formatting.WHITE)
+                            : Text.literal(item).formatted(Formatting.WHITE)
+                                    .append(Text.literal(" - " + displayName).formatted(Formatting.GRAY));
+                    stack = named(Items.PAPER, name);
+                    break;
+                }
+                default:
+                    stack = named(Items.PAPER, Text.literal(item).formatted(Formatting.WHITE));
+                    break;
+            }
+            templates[ITEM_START_SLOT + i] = stack;
+        }
+
+        // Fill empty slots
+        boolean fillAll = type == PageType.ADMIN_STATS || type == PageType.ADMIN_OBJECTIVES;
+        ItemStack glassPane = named(Items.GRAY_STAINED_GLASS_PANE, Text.literal(" "));
+        for (int i = fillAll ? 0 : ITEM_START_SLOT + items.size(); i < GUI_SIZE; i++) {
+            if (templates[i] == null) {
+                templates[i] = glassPane;
+            }
+        }
+
+        return new PageModel(type, page, query, version, items, hasNext, templates);
+    }
+
+    private static ItemStack named(Item item, Text name) {
+        ItemStack stack = new ItemStack(item);
+        stack.setCustomName(name);
+        return stack;
+    }
+}
@@ -0,0 +1,86 @@
+package com.scserver.serverscoreboard;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ログイン時のスコアボード復元の待ち行列
+ * ログインからJOIN_RESTORE_DELAY_TICKS後（クライアントの初期化を待つ）に復元し、1tickあたりの復元人数をJOIN_RESTORE_MAX_PER_TICKまでに抑える
+ * 再起動直後に大勢が同時にログインしても、サーバースレッドを止めずに数tickに分散して送信する
+ */
+public class JoinRestoreQueue {
+    // 到着順（遅延は一定のため、先頭から順に復元できる）
+    private static final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+    // プレイヤー -> 有効な予約（切断・再ログインで古い予約を無効にする）
+    private static final Map<UUID, Integer> tickets = new ConcurrentHashMap<>();
+    private static final AtomicInteger nextTicket = new AtomicInteger();
+
+    private static final class Pending {
+        final UUID playerId;
+        final int ticket;
+        final int readyTick;
+
+        Pending(UUID playerId, int ticket, int readyTick) {
+            this.playerId = playerId;
+            this.ticket = ticket;
+            this.readyTick = readyTick;
+        }
+    }
+
+    /**
+     * 復元を予約（同じプレイヤーの古い予約は無効になる）
+     */
+    public static void enqueue(MinecraftServer server, UUID playerId) {
+        int ticket = nextTicket.incrementAndGet();
+        tickets.put(playerId, ticket);
+        queue.add(new Pending(playerId, ticket, server.getTicks() + ServerScoreboardConfig.JOIN_RESTORE_DELAY_TICKS));
+    }
+
+    /**
+     * 予約を取り消す（切断時）
+     */
+    public static void cancel(UUID playerId) {
+        tickets.remove(playerId);
+    }
+
+    /**
+     * 復元の時刻になったプレイヤーを、1tickの上限まで復元する（サーバースレッドから毎tick呼ぶ）
+     */
+    public static void tick(MinecraftServer server) {
+        int now = server.getTicks();
+        int restored = 0;
+        Pending pending;
+        while (restored < ServerScoreboardConfig.JOIN_RESTORE_MAX_PER_TICK && (pending = queue.peek()) != null) {
+            if (pending.readyTick > now) {
+                break;
+            }
+            queue.poll();
+            // 取り消された予約・再ログインで置き換えられた予約は上限に数えない
+            if (!tickets.remove(pending.playerId, pending.ticket)) {
+                continue;
+            }
+            ServerPlayerEntity player = server.getPlayerManager().getPlayer(pending.playerId);
+            if (player == null) {
+                continue;
+            }
+            ServerScoreboardManager.restorePlayerScoreboard(player);
+            restored++;
+        }
+    }
+
+    public static int getPendingCount() {
+        return tickets.size();
+    }
+
+    public static void clearAll() {
+        queue.clear();
+        tickets.clear();
+    }
+}
@@ -0,0 +1,99 @@
+package com.scserver.serverscoreboard;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 固定容量のロックフリーなリングバッファ（複数スレッドから書き込み可能）
+ * 各スロットのシーケンス番号で書き込み完了を判定するため、ロックを取らずに追加・取り出しができる
+ * 満杯の場合は追加に失敗する（待機しない）
+ */
+public class LogRingBuffer<T> {
+    private final int mask;
+    private final AtomicReferenceArray<T> items;
+    // スロットごとのシーケンス番号（書き込み可能・読み込み可能な位置を表す）
+    private final AtomicLongArray sequences;
+    private final AtomicLong writePosition = new AtomicLong();
+    private final AtomicLong readPosition = new AtomicLong();
+
+    /**
+     * @param capacity 容量（2のべき乗に切り上げる）
+     */
+    public LogRingBuffer(int capacity) {
+        int size = 2;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.items = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 要素を追加する
+     * @return true: 追加成功、false: 満杯
+     */
+    public boolean offer(T item) {
+        long position = writePosition.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (writePosition.compareAndSet(position, position + 1)) {
+                    items.set(index, item);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = writePosition.get();
+            } else if (diff < 0) {
+                // 1周前の要素がまだ取り出されていない
+                return false;
+            } else {
+                position = writePosition.get();
+            }
+        }
+    }
+
+    /**
+     * 先頭の要素を取り出す
+     * @return 要素（空の場合はnull）
+     */
+    public T poll() {
+        long position = readPosition.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - (position + 1);
+            if (diff == 0) {
+                if (readPosition.compareAndSet(position, position + 1)) {
+                    T item = items.get(index);
+                    items.set(index, null);
+                    sequences.set(index, position + mask + 1);
+                    return item;
+                }
+                position = readPosition.get();
+            } else if (diff < 0) {
+                // 空、または書き込み途中
+                return null;
+            } else {
+                position = readPosition.get();
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return writePosition.get() == readPosition.get();
+    }
+
+    public int size() {
+        long size = writePosition.get() - readPosition.get();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,355 @@
+package com.scserver.serverscoreboard;
+
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.packet.Packet;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * MODの各処理の計測（常時有効）
+ * 処理時間はナノ秒で記録し、直近のサンプルからp50/p99を求める
+ * 記録はSystem.nanoTime()と配列への書き込みのみで、集計は表示時に行う
+ */
+public class ModMetrics {
+    // 直近何回分の処理時間を保持するか（2のべき乗）
+    private static final int SAMPLE_WINDOW = 1024;
+
+    private static final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private static final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    // 登録順（表示用）
+    private static final List<Timer> timerOrder = Collections.synchronizedList(new ArrayList<>());
+    private static final List<Counter> counterOrder = Collections.synchronizedList(new ArrayList<>());
+    private static final Map<String, Gauge> gauges = new ConcurrentHashMap<>();
+    private static final List<Gauge> gaugeOrder = Collections.synchronizedList(new ArrayList<>());
+    // プレイヤーごとの送信パケット数（オンラインのプレイヤーのみ）
+    private static final Map<UUID, PlayerCounter> playerPackets = new ConcurrentHashMap<>();
+
+    // 処理時間
+    public static final Timer MOD_TICK = timer("mod_tick", "ティック処理全体");
+    public static final Timer CLIENT_SCOREBOARDS = timer("update_client_scoreboards", "スコアボード送信");
+    public static final Timer TOTAL_STATS = timer("update_total_stats", "統計の更新");
+    public static final Timer SAVE_CACHE = timer("save_stats_cache", "統計キャッシュの保存");
+    public static final Timer DEBUG_BROADCAST = timer("debug_broadcast", "デバッグメッセージ送信");
+    public static final Timer OBJECTIVE_INDEX = timer("objective_index", "オブジェクティブ検索インデックスの更新");
+    public static final Timer EVENT_BLOCK_BREAK = timer("event_block_break", "ブロック破壊イベント");
+    public static final Timer EVENT_USE_BLOCK = timer("event_use_block", "ブロック使用イベント");
+    public static final Timer EVENT_ENTITY_DEATH = timer("event_entity_death", "死亡イベント");
+    public static final Timer EVENT_USE_ITEM = timer("event_use_item", "アイテム使用イベント");
+    public static final Timer EVENT_ATTACK_ENTITY = timer("event_attack_entity", "攻撃イベント");
+    public static final Timer FORCED_STAT_UPDATE = timer("forced_stat_update", "イベントによる統計の更新");
+
+    // 件数
+    public static final Counter PACKETS_SENT = counter("packets_sent", "送信パケット");
+    public static final Counter PACKETS_COALESCED = counter("packets_coalesced", "差分で省略したパケット");
+    public static final Counter PACKETS_RATE_LIMITED = counter("packets_rate_limited", "レート制限で拒否");
+    public static final Counter BYTES_SENT = counter("bytes_sent", "送信バイト数（圧縮前）");
+
+    // 現在値（サーバースレッドで定期的に更新し、外部への公開時はこの値のみ読む）
+    public static final Gauge ONLINE_PLAYERS = gauge("online_players", "オンラインプレイヤー数");
+    public static final Gauge NETWORK_LOAD_PERCENT = gauge("network_load_percent", "ネットワーク負荷（%）");
+    public static final Gauge NETWORK_LOAD_LEVEL = gauge("network_load_level", "ネットワーク負荷レベル（0=LOW〜3=CRITICAL）");
+    public static final Gauge STATS_CACHE_PLAYERS = gauge("stats_cache_players", "統計キャッシュのプレイヤー数");
+    public static final Gauge SCOREBOARD_CACHE_PLAYERS = gauge("scoreboard_cache_players", "スコアボードキャッシュのプレイヤー数");
+    public static final Gauge SCOREBOARD_CACHE_ENTRIES = gauge("scoreboard_cache_entries", "スコアボードキャッシュのエントリ数");
+    public static final Gauge LOG_DROPPED = gauge("log_dropped", "破棄したログ数");
+    public static final Gauge CUSTOM_BOARDS = gauge("custom_boards", "カスタムスコアボード表示中のプレイヤー数");
+    public static final Gauge TRANSFORMED_VIEWS = gauge("transformed_views", "変換済みスコアボード表示中のプレイヤー数");
+    public static final Gauge SHARED_TRANSFORMS = gauge("shared_transforms", "変換済みスコアボードの変換内容の種類数");
+    public static final Gauge GUI_PAGES = gauge("gui_pages", "キャッシュ中のGUIページ数");
+    public static final Gauge JOIN_RESTORE_PENDING = gauge("join_restore_pending", "ログイン時の復元待ちのプレイヤー数");
+
+    /**
+     * 処理時間の計測器を取得（なければ作成）
+     * @param name 識別名（英小文字とアンダースコア）
+     * @param displayName 表示名
+     */
+    public static Timer timer(String name, String displayName) {
+        return timers.computeIfAbsent(name, k -> {
+            Timer timer = new Timer(name, displayName);
+            timerOrder.add(timer);
+            return timer;
+        });
+    }
+
+    public static Counter counter(String name, String displayName) {
+        return counters.computeIfAbsent(name, k -> {
+            Counter counter = new Counter(name, displayName);
+            counterOrder.add(counter);
+            return counter;
+        });
+    }
+
+    public static Gauge gauge(String name, String displayName) {
+        return gauges.computeIfAbsent(name, k -> {
+            Gauge gauge = new Gauge(name, displayName);
+            gaugeOrder.add(gauge);
+            return gauge;
+        });
+    }
+
+    /**
+     * スコアボードのパケットを送信し、送信数・バイト数・プレイヤーごとの送信数を記録
+     */
+    public static void sendPacket(ServerPlayerEntity player, Packet<?> packet) {
+        player.networkHandler.sendPacket(packet);
+        PACKETS_SENT.increment();
+        BYTES_SENT.add(encodedSize(packet));
+        recordPlayerPacket(player.getUuid());
+    }
+
+    // パケットの本文のバイト数（圧縮前、パケットIDと長さの接頭辞を除く）
+    private static int encodedSize(Packet<?> packet) {
+        PacketByteBuf buf = new PacketByteBuf(Unpooled.buffer());
+        try {
+            packet.write(buf);
+            return buf.readableBytes();
+        } finally {
+            buf.release();
+        }
+    }
+
+    private static void recordPlayerPacket(UUID playerId) {
+        PlayerCounter counter = playerPackets.get(playerId);
+        if (counter != null) {
+            counter.packets.increment();
+        }
+    }
+
+    public static void registerPlayer(UUID playerId, String playerName) {
+        playerPackets.put(playerId, new PlayerCounter(playerName));
+    }
+
+    public static void forgetPlayer(UUID playerId) {
+        playerPackets.remove(playerId);
+    }
+
+    /**
+     * プレイヤー名 -> 送信パケット数
+     */
+    public static Map<String, Long> getPlayerPackets() {
+        Map<String, Long> result = new TreeMap<>();
+        for (PlayerCounter counter : playerPackets.values()) {
+            result.put(counter.playerName, counter.packets.sum());
+        }
+        return result;
+    }
+
+    /**
+     * 現在値を更新（サーバースレッドで1秒ごとに呼び出し）
+     */
+    public static void sampleGauges(MinecraftServer server) {
+        ONLINE_PLAYERS.set(server.getPlayerManager().getCurrentPlayerCount());
+        NETWORK_LOAD_PERCENT.set(NetworkLoadMonitor.getCurrentLoadPercentage());
+        NETWORK_LOAD_LEVEL.set(NetworkLoadMonitor.getCurrentLoadLevel().ordinal());
+        STATS_CACHE_PLAYERS.set(PlayerStatsCache.getCachedPlayerCount());
+        SCOREBOARD_CACHE_PLAYERS.set(ServerScoreboardManager.getScoreboardCachePlayerCount());
+        SCOREBOARD_CACHE_ENTRIES.set(ServerScoreboardManager.getScoreboardCacheEntryCount());
+        LOG_DROPPED.set(ServerScoreboardLogger.getDroppedCount());
+        CUSTOM_BOARDS.set(CustomScoreboardPacketSender.getCustomBoardCount());
+        TRANSFORMED_VIEWS.set(CustomScoreboardPacketSender.getTransformedViewCount());
+        SHARED_TRANSFORMS.set(CustomScoreboardPacketSender.getSharedTransformCount());
+        GUI_PAGES.set(GuiPageCache.getCachedPageCount());
+        JOIN_RESTORE_PENDING.set(JoinRestoreQueue.getPendingCount());
+    }
+
+    public static List<Gauge> getGauges() {
+        synchronized (gaugeOrder) {
+            return new ArrayList<>(gaugeOrder);
+        }
+    }
+
+    public static List<Timer> getTimers() {
+        synchronized (timerOrder) {
+            return new ArrayList<>(timerOrder);
+        }
+    }
+
+    public static List<Counter> getCounters() {
+        synchronized (counterOrder) {
+            return new ArrayList<>(counterOrder);
+        }
+    }
+
+    public static void resetAll() {
+        for (Timer timer : getTimers()) {
+            timer.reset();
+        }
+        for (Counter counter : getCounters()) {
+            counter.reset();
+        }
+    }
+
+    public static final class Timer {
+        public final String name;
+        public final String displayName;
+        private final AtomicLongArray samples = new AtomicLongArray(SAMPLE_WINDOW);
+        private final AtomicLong count = new AtomicLong();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        Timer(String name, String displayName) {
+            this.name = name;
+            this.displayName = displayName;
+        }
+
+        /**
+         * 計測開始（戻り値をstopに渡す）
+         */
+        public long start() {
+            return System.nanoTime();
+        }
+
+        public void stop(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        public void record(long nanos) {
+            long index = count.getAndIncrement();
+            samples.set((int) (index & (SAMPLE_WINDOW - 1)), nanos);
+            totalNanos.add(nanos);
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+        }
+
+        public long getCount() {
+            return count.get();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        /**
+         * 直近のサンプルの統計を取得
+         */
+        public Snapshot snapshot() {
+            long total = count.get();
+            int size = (int) Math.min(total, SAMPLE_WINDOW);
+            long[] values = new long[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = samples.get(i);
+            }
+            Arrays.sort(values);
+
+            long sum = 0;
+            for (long value : values) {
+                sum += value;
+            }
+            return new Snapshot(total, size,
+                size > 0 ? sum / size : 0,
+                percentile(values, 0.50),
+                percentile(values, 0.99),
+                maxNanos.get(),
+                totalNanos.sum());
+        }
+
+        void reset() {
+            count.set(0);
+            totalNanos.reset();
+            maxNanos.set(0);
+        }
+
+        private static long percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+
+    // 処理時間の集計結果（ナノ秒）
+    public static final class Snapshot {
+        public final long count;
+        public final int windowSize;
+        public final long meanNanos;
+        public final long p50Nanos;
+        public final long p99Nanos;
+        public final long maxNanos;
+        public final long totalNanos;
+
+        Snapshot(long count, int windowSize, long meanNanos, long p50Nanos, long p99Nanos, long maxNanos, long totalNanos) {
+            this.count = count;
+            this.windowSize = windowSize;
+            this.meanNanos = meanNanos;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.maxNanos = maxNanos;
+            this.totalNanos = totalNanos;
+        }
+    }
+
+    public static final class Gauge {
+        public final String name;
+        public final String displayName;
+        private volatile long value = 0;
+
+        Gauge(String name, String displayName) {
+            this.name = name;
+            this.displayName = displayName;
+        }
+
+        public void set(long value) {
+            this.value = value;
+        }
+
+        public long get() {
+            return value;
+        }
+    }
+
+    private static final class PlayerCounter {
+        final String playerName;
+        final LongAdder packets = new LongAdder();
+
+        PlayerCounter(String playerName) {
+            this.playerName = playerName;
+        }
+    }
+
+    public static final class Counter {
+        public final String name;
+        public final String displayName;
+        private final LongAdder value = new LongAdder();
+
+        Counter(String name, String displayName) {
+            this.name = name;
+            this.displayName = displayName;
+        }
+
+        public void increment() {
+            value.increment();
+        }
+
+        public void add(long amount) {
+            value.add(amount);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+
+        void reset() {
+            value.reset();
+        }
+    }
+}
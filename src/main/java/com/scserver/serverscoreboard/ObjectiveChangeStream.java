@@ -0,0 +1,104 @@
+package com.scserver.serverscoreboard;
+
+import net.minecraft.scoreboard.ScoreboardObjective;
+import net.minecraft.server.MinecraftServer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * オブジェクティブのスコア変更の通知
+ * 監視中のオブジェクティブごとに前回のスコアを1つだけ保持し、SidebarWindowのスナップショットとの差分を変更として返す
+ * 閲覧者が何人いても比較はオブジェクティブごとに1回で、閲覧者は変更されたエントリのみを処理する
+ */
+public class ObjectiveChangeStream {
+    // オブジェクティブ名 -> 前回通知した時点のスコア
+    private static final Map<String, Map<String, Integer>> lastScores = new ConcurrentHashMap<>();
+
+    // スコアの変更（scoreがnullの場合は削除）
+    public static final class Change {
+        public final String entry;
+        public final Integer score;
+
+        Change(String entry, Integer score) {
+            this.entry = entry;
+            this.score = score;
+        }
+    }
+
+    /**
+     * 監視を開始（既に監視中の場合は何もしない）
+     * @param scores 閲覧者に送信した時点のスコア（以降の変更はここからの差分になる）
+     */
+    public static void track(String objectiveName, Map<String, Integer> scores) {
+        lastScores.computeIfAbsent(objectiveName, k -> new HashMap<>(scores));
+    }
+
+    /**
+     * 監視中のオブジェクティブの変更を取得
+     * @param objectiveNames 監視を続けるオブジェクティブ（それ以外は監視をやめる）
+     * @return オブジェクティブ名 -> 前回からの変更（変更のないオブジェクティブは含まない）
+     */
+    public static Map<String, List<Change>> poll(MinecraftServer server, Set<String> objectiveNames) {
+        lastScores.keySet().retainAll(objectiveNames);
+        if (objectiveNames.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, List<Change>> changes = new HashMap<>();
+        for (String objectiveName : objectiveNames) {
+            // 仮想モードの統計オブジェクティブも監視できるようにする
+            ScoreboardObjective objective = ServerScoreboardManager.resolveObjective(objectiveName);
+            if (objective == null) {
+                lastScores.remove(objectiveName);
+                continue;
+            }
+
+            // 同じtickの他の閲覧者と共有するスナップショット
+            Map<String, Integer> current = SidebarWindow.snapshot(server, objective).scores;
+            Map<String, Integer> previous = lastScores.get(objectiveName);
+            if (previous == null) {
+                lastScores.put(objectiveName, new HashMap<>(current));
+                continue;
+            }
+
+            List<Change> objectiveChanges = null;
+            for (Map.Entry<String, Integer> entry : current.entrySet()) {
+                Integer old = previous.put(entry.getKey(), entry.getValue());
+                if (!entry.getValue().equals(old)) {
+                    if (objectiveChanges == null) objectiveChanges = new ArrayList<>();
+                    objectiveChanges.add(new Change(entry.getKey(), entry.getValue()));
+                }
+            }
+            if (previous.size() > current.size()) {
+                Iterator<String> it = previous.keySet().iterator();
+                while (it.hasNext()) {
+                    String entryName = it.next();
+                    if (!current.containsKey(entryName)) {
+                        it.remove();
+                        if (objectiveChanges == null) objectiveChanges = new ArrayList<>();
+                        objectiveChanges.add(new Change(entryName, null));
+                    }
+                }
+            }
+            if (objectiveChanges != null) {
+                changes.put(objectiveName, objectiveChanges);
+            }
+        }
+        return changes;
+    }
+
+    public static int getTrackedCount() {
+        return lastScores.size();
+    }
+
+    public static void clearAll() {
+        lastScores.clear();
+    }
+}
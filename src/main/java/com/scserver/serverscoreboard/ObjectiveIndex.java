@@ -0,0 +1,440 @@
+package com.scserver.serverscoreboard;
+
+import net.minecraft.scoreboard.ScoreboardObjective;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.text.Text;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * オブジェクティブの検索インデックス（不変）
+ * 名前・表示名を小文字にした文字列の接尾辞を並べた配列を持ち、前方一致・部分一致を二分探索で検索する
+ * オブジェクティブの追加・削除・表示名の変更があった場合のみ、変わったオブジェクティブの接尾辞だけを並べて既存の配列とマージする
+ * サーバースレッドでtickごとに更新し、作成済みのインデックスは変更しないため、current()でどのスレッドからも参照できる
+ */
+public final class ObjectiveIndex {
+    // 部分一致の開始位置にする先頭からの文字数（長い表示名で配列が大きくならないように）
+    private static final int MAX_INDEXED_OFFSET = 64;
+    // 接尾辞の表現: 位置(オブジェクティブの添字) << 7 | 表示名フラグ << 6 | 開始位置
+    private static final int OFFSET_MASK = 0x3F;
+    private static final int DISPLAY_KEY_BIT = 0x40;
+    private static final int POSITION_SHIFT = 7;
+
+    private static volatile ObjectiveIndex current = new ObjectiveIndex(0, new Entry[0], new int[0]);
+    // オブジェクティブの構成を確認したtick（tickごとに最大1回）
+    private static int checkedTick = -1;
+    // 作り直すたびに増やすバージョン（clearAll後も戻さない）
+    private static long lastVersion = 0;
+
+    /**
+     * 検索結果の1件
+     */
+    public static final class Entry {
+        public final String name;
+        public final String displayName;
+        // トータル統計のオブジェクティブか
+        public final boolean total;
+        final String lowerName;
+        // 表示名が名前と同じ場合はnull
+        final String lowerDisplayName;
+        // 再構築時に変わっていないかの判定用
+        private final ScoreboardObjective objective;
+        private final Text displayText;
+
+        private Entry(ScoreboardObjective objective) {
+            this.objective = objective;
+            this.displayText = objective.getDisplayName();
+            this.name = objective.getName();
+            this.displayName = displayText.getString();
+            this.total = TotalStatsManager.isTotalObjective(name);
+            this.lowerName = name.toLowerCase(Locale.ROOT);
+            String lowerDisplay = displayName.toLowerCase(Locale.ROOT);
+            this.lowerDisplayName = lowerDisplay.equals(lowerName) || lowerDisplay.isEmpty() ? null : lowerDisplay;
+        }
+    }
+
+    // オブジェクティブの構成のバージョン（追加・削除・表示名の変更で増える）
+    public final long version;
+    // 名前順
+    private final Entry[] entries;
+    // 接尾辞の辞書順
+    private final int[] suffixes;
+    private final Map<String, Integer> positions;
+    private final List<String> names;
+    private final List<String> namesWithoutTotals;
+
+    private ObjectiveIndex(long version, Entry[] entries, int[] suffixes) {
+        this.version = version;
+        this.entries = entries;
+        this.suffixes = suffixes;
+        this.positions = new HashMap<>(entries.length * 2);
+        List<String> all = new ArrayList<>(entries.length);
+        List<String> withoutTotals = new ArrayList<>(entries.length);
+        for (int i = 0; i < entries.length; i++) {
+            positions.put(entries[i].name, i);
+            all.add(entries[i].name);
+            if (!entries[i].total) {
+                withoutTotals.add(entries[i].name);
+            }
+        }
+        this.names = Collections.unmodifiableList(all);
+        this.namesWithoutTotals = Collections.unmodifiableList(withoutTotals);
+    }
+
+    /**
+     * 現在のインデックスを取得（サーバースレッドから呼ぶ）
+     * オブジェクティブの構成の確認はtickごとに最大1回で、変わっていた場合のみ作り直す
+     */
+    public static synchronized ObjectiveIndex get(MinecraftServer server) {
+        int tick = server.getTicks();
+        if (tick == checkedTick) {
+            return current;
+        }
+        checkedTick = tick;
+        Collection<ScoreboardObjective> objectives = collectObjectives(server);
+        if (!current.matches(objectives)) {
+            long start = System.nanoTime();
+            current = rebuild(current, objectives, ++lastVersion);
+            if (ServerScoreboardLogger.isDebugEnabled()) {
+                ServerScoreboardLogger.debug("Objective index rebuilt: " + current.entries.length + " objectives, "
+                        + current.suffixes.length + " suffixes in " + (System.nanoTime() - start) / 1000 + "us");
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 最後に作成したインデックスを取得
+     * スコアボードを参照しないため、サーバースレッド以外（Discordのオートコンプリートなど）からも呼べる
+     */
+    public static ObjectiveIndex current() {
+        return current;
+    }
+
+    public static void clearAll() {
+        synchronized (ObjectiveIndex.class) {
+            current = new ObjectiveIndex(++lastVersion, new Entry[0], new int[0]);
+            checkedTick = -1;
+        }
+    }
+
+    /**
+     * 名前順のオブジェクティブ名
+     * @param includeTotals トータル統計のオブジェクティブを含めるか
+     */
+    public List<String> getNames(boolean includeTotals) {
+        return includeTotals ? names : namesWithoutTotals;
+    }
+
+    public int size() {
+        return entries.length;
+    }
+
+    /**
+     * 表示名を取得
+     * @return 表示名（オブジェクティブがない場合はnull）
+     */
+    public String getDisplayName(String objectiveName) {
+        Integer position = positions.get(objectiveName);
+        return position != null ? entries[position].displayName : null;
+    }
+
+    /**
+     * 名前・表示名で検索（大文字小文字は区別しない）
+     * 名前の前方一致を先に、それ以外の一致（名前の部分一致、表示名の前方・部分一致）を後に、それぞれ名前順で返す
+     * @param query 検索語（空の場合は全件）
+     * @param includeTotals トータル統計のオブジェクティブを含めるか
+     * @param limit 最大件数
+     */
+    public List<Entry> search(String query, boolean includeTotals, int limit) {
+        String lowerQuery = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+        List<Entry> results = new ArrayList<>(Math.min(limit, 64));
+        if (lowerQuery.isEmpty()) {
+            for (int i = 0; i < entries.length && results.size() < limit; i++) {
+                if (includeTotals || !entries[i].total) {
+                    results.add(entries[i]);
+                }
+            }
+            return results;
+        }
+
+        BitSet prefixMatches = new BitSet(entries.length);
+        BitSet otherMatches = new BitSet(entries.length);
+        for (int i = lowerBound(lowerQuery); i < suffixes.length && startsWith(suffixes[i], lowerQuery); i++) {
+            int suffix = suffixes[i];
+            if ((suffix & (DISPLAY_KEY_BIT | OFFSET_MASK)) == 0) {
+                prefixMatches.set(suffix >>> POSITION_SHIFT);
+            } else {
+                otherMatches.set(suffix >>> POSITION_SHIFT);
+            }
+        }
+        otherMatches.andNot(prefixMatches);
+        collect(prefixMatches, includeTotals, limit, results);
+        collect(otherMatches, includeTotals, limit, results);
+        return results;
+    }
+
+    private void collect(BitSet matches, boolean includeTotals, int limit, List<Entry> results) {
+        for (int i = matches.nextSetBit(0); i >= 0 && results.size() < limit; i = matches.nextSetBit(i + 1)) {
+            if (includeTotals || !entries[i].total) {
+                results.add(entries[i]);
+            }
+        }
+    }
+
+    // 検索語以上になる最初の接尾辞
+    private int lowerBound(String query) {
+        int low = 0;
+        int high = suffixes.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareToQuery(suffixes[mid], query) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static String keyOf(Entry[] entries, int suffix) {
+        Entry entry = entries[suffix >>> POSITION_SHIFT];
+        return (suffix & DISPLAY_KEY_BIT) != 0 ? entry.lowerDisplayName : entry.lowerName;
+    }
+
+    private boolean startsWith(int suffix, String query) {
+        return keyOf(entries, suffix).startsWith(query, suffix & OFFSET_MASK);
+    }
+
+    private int compareToQuery(int suffix, String query) {
+        String key = keyOf(entries, suffix);
+        int offset = suffix & OFFSET_MASK;
+        int length = Math.min(key.length() - offset, query.length());
+        for (int i = 0; i < length; i++) {
+            int diff = key.charAt(offset + i) - query.charAt(i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return (key.length() - offset) - query.length();
+    }
+
+    // ---- 構築 ----
+
+    /**
+     * 検索対象のオブジェクティブ
+     * 仮想モードのトータル統計はサーバースコアボードに存在しないため、有効な統計の仮想オブジェクティブを加える
+     */
+    private static Collection<ScoreboardObjective> collectObjectives(MinecraftServer server) {
+        Collection<ScoreboardObjective> objectives = server.getScoreboard().getObjectives();
+        if (!TotalStatsManager.isVirtualMode()) {
+            return objectives;
+        }
+        List<ScoreboardObjective> all = new ArrayList<>(objectives);
+        for (String statId : TotalStatsManager.getEnabledStats()) {
+            ScoreboardObjective virtual = TotalStatsManager.getVirtualObjective("total_" + statId);
+            if (virtual != null && server.getScoreboard().getObjective(virtual.getName()) == null) {
+                all.add(virtual);
+            }
+        }
+        return all;
+    }
+
+    /**
+     * オブジェクティブの構成がこのインデックスと同じか
+     * 件数が同じで、すべてのオブジェクティブが同じ名前のEntryとインスタンス・表示名まで一致する場合のみ同じとみなす
+     * （名前は重複しないため、件数が同じなら追加・削除・表示名の変更を取りこぼさない）
+     */
+    private boolean matches(Collection<ScoreboardObjective> objectives) {
+        if (objectives.size() != entries.length) {
+            return false;
+        }
+        for (ScoreboardObjective objective : objectives) {
+            Integer position = positions.get(objective.getName());
+            if (position == null) {
+                return false;
+            }
+            Entry entry = entries[position];
+            if (entry.objective != objective || entry.displayText != objective.getDisplayName()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ObjectiveIndex rebuild(ObjectiveIndex previous, Collection<ScoreboardObjective> objectives, long version) {
+        // 変わっていないオブジェクティブは前回のEntryを再利用する
+        Entry[] entries = new Entry[objectives.size()];
+        int count = 0;
+        for (ScoreboardObjective objective : objectives) {
+            Integer previousPosition = previous.positions.get(objective.getName());
+            Entry entry = previousPosition != null ? previous.entries[previousPosition] : null;
+            if (entry == null || entry.objective != objective || entry.displayText != objective.getDisplayName()) {
+                entry = new Entry(objective);
+            }
+            entries[count++] = entry;
+        }
+        if (count != entries.length) {
+            entries = Arrays.copyOf(entries, count);
+        }
+        Arrays.sort(entries, (a, b) -> a.name.compareTo(b.name));
+
+        // 前回の添字 -> 今回の添字（削除されたものは-1）
+        int[] remap = new int[previous.entries.length];
+        Arrays.fill(remap, -1);
+        List<Integer> added = new ArrayList<>();
+        for (int i = 0; i < entries.length; i++) {
+            Integer previousPosition = previous.positions.get(entries[i].name);
+            if (previousPosition != null && previous.entries[previousPosition] == entries[i]) {
+                remap[previousPosition] = i;
+            } else {
+                added.add(i);
+            }
+        }
+
+        // 残った接尾辞は添字だけ付け替える（辞書順は変わらない）
+        int[] kept = new int[previous.suffixes.length];
+        int keptCount = 0;
+        for (int suffix : previous.suffixes) {
+            int position = remap[suffix >>> POSITION_SHIFT];
+            if (position >= 0) {
+                kept[keptCount++] = (position << POSITION_SHIFT) | (suffix & (DISPLAY_KEY_BIT | OFFSET_MASK));
+            }
+        }
+
+        // 追加・変更されたオブジェクティブの接尾辞のみ並べる
+        int addedCount = 0;
+        for (int position : added) {
+            Entry entry = entries[position];
+            addedCount += Math.min(entry.lowerName.length(), MAX_INDEXED_OFFSET);
+            if (entry.lowerDisplayName != null) {
+                addedCount += Math.min(entry.lowerDisplayName.length(), MAX_INDEXED_OFFSET);
+            }
+        }
+        int[] addedSuffixes = new int[addedCount];
+        int n = 0;
+        for (int position : added) {
+            Entry entry = entries[position];
+            n = addSuffixes(addedSuffixes, n, position, 0, entry.lowerName);
+            if (entry.lowerDisplayName != null) {
+                n = addSuffixes(addedSuffixes, n, position, DISPLAY_KEY_BIT, entry.lowerDisplayName);
+            }
+        }
+        sortSuffixes(entries, addedSuffixes);
+
+        // マージ
+        int[] suffixes = new int[keptCount + addedCount];
+        int i = 0, j = 0, k = 0;
+        while (i < keptCount && j < addedCount) {
+            if (compareSuffixes(entries, kept[i], addedSuffixes[j]) <= 0) {
+                suffixes[k++] = kept[i++];
+            } else {
+                suffixes[k++] = addedSuffixes[j++];
+            }
+        }
+        while (i < keptCount) {
+            suffixes[k++] = kept[i++];
+        }
+        while (j < addedCount) {
+            suffixes[k++] = addedSuffixes[j++];
+        }
+        return new ObjectiveIndex(version, entries, suffixes);
+    }
+
+    private static int addSuffixes(int[] suffixes, int count, int position, int keyBit, String key) {
+        int limit = Math.min(key.length(), MAX_INDEXED_OFFSET);
+        for (int offset = 0; offset < limit; offset++) {
+            suffixes[count++] = (position << POSITION_SHIFT) | keyBit | offset;
+        }
+        return count;
+    }
+
+    /**
+     * 接尾辞を辞書順に並べる（3分割のマルチキークイックソート）
+     * 1文字ずつ比較して分割するため、"total_"のような共通の接頭辞を何度も比較しない
+     */
+    private static void sortSuffixes(Entry[] entries, int[] suffixes) {
+        sortSuffixes(entries, suffixes, 0, suffixes.length, 0);
+    }
+
+    private static void sortSuffixes(Entry[] entries, int[] suffixes, int from, int to, int depth) {
+        while (to - from > 1) {
+            if (to - from < 12) {
+                // 小さい範囲は挿入ソート
+                for (int i = from + 1; i < to; i++) {
+                    int suffix = suffixes[i];
+                    int j = i - 1;
+                    while (j >= from && compareSuffixes(entries, suffixes[j], suffix) > 0) {
+                        suffixes[j + 1] = suffixes[j];
+                        j--;
+                    }
+                    suffixes[j + 1] = suffix;
+                }
+                return;
+            }
+
+            int pivot = medianOfThree(charAt(entries, suffixes[from], depth),
+                    charAt(entries, suffixes[(from + to) >>> 1], depth),
+                    charAt(entries, suffixes[to - 1], depth));
+            int less = from, greater = to - 1, i = from;
+            while (i <= greater) {
+                int c = charAt(entries, suffixes[i], depth);
+                if (c < pivot) {
+                    swap(suffixes, less++, i++);
+                } else if (c > pivot) {
+                    swap(suffixes, i, greater--);
+                } else {
+                    i++;
+                }
+            }
+            sortSuffixes(entries, suffixes, from, less, depth);
+            if (pivot >= 0) {
+                // 同じ文字の範囲は次の文字で並べる
+                sortSuffixes(entries, suffixes, less, greater + 1, depth + 1);
+            }
+            from = greater + 1;
+        }
+    }
+
+    // 接尾辞のdepth文字目（終わりの場合は-1）
+    private static int charAt(Entry[] entries, int suffix, int depth) {
+        String key = keyOf(entries, suffix);
+        int index = (suffix & OFFSET_MASK) + depth;
+        return index < key.length() ? key.charAt(index) : -1;
+    }
+
+    private static int medianOfThree(int a, int b, int c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    private static void swap(int[] array, int i, int j) {
+        int tmp = array[i];
+        array[i] = array[j];
+        array[j] = tmp;
+    }
+
+    private static int compareSuffixes(Entry[] entries, int a, int b) {
+        String keyA = keyOf(entries, a);
+        String keyB = keyOf(entries, b);
+        int offsetA = a & OFFSET_MASK;
+        int offsetB = b & OFFSET_MASK;
+        int lengthA = keyA.length() - offsetA;
+        int lengthB = keyB.length() - offsetB;
+        int length = Math.min(lengthA, lengthB);
+        for (int i = 0; i < length; i++) {
+            int diff = keyA.charAt(offsetA + i) - keyB.charAt(offsetB + i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return lengthA - lengthB;
+    }
+}
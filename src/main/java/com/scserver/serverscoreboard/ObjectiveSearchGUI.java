@@ -0,0 +1,77 @@
+package com.scserver.serverscoreboard;
+
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.screen.AnvilScreenHandler;
+import net.minecraft.screen.slot.SlotActionType;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.text.Text;
+
+/**
+ * スコアボード検索の入力画面（金床の名前欄を検索欄として使う）
+ * 結果スロットをクリックすると、入力した検索語で検索結果のGUIを開く
+ */
+public class ObjectiveSearchGUI {
+    // 金床の結果スロット
+    private static final int RESULT_SLOT = 2;
+
+    public static void openFor(ServerPlayerEntity player, String query) {
+        player.openHandledScreen(new net.minecraft.screen.SimpleNamedScreenHandlerFactory(
+                (syncId, playerInventory, playerEntity) -> new SearchScreenHandler(syncId, playerInventory, player, query),
+                Text.literal("スコアボード検索")
+        ));
+    }
+
+    public static class SearchScreenHandler extends AnvilScreenHandler {
+        private final ServerPlayerEntity viewer;
+        private String query;
+
+        public SearchScreenHandler(int syncId, PlayerInventory playerInventory, ServerPlayerEntity viewer, String query) {
+            super(syncId, playerInventory);
+            this.viewer = viewer;
+            this.query = query != null ? query : "";
+            // 名前欄に前回の検索語を表示するための紙（取り出せない）
+            ItemStack paper = new ItemStack(Items.PAPER);
+            paper.setCustomName(Text.literal(this.query));
+            this.input.setStack(0, paper);
+        }
+
+        @Override
+        public boolean canUse(PlayerEntity player) {
+            return true;
+        }
+
+        @Override
+        public void setNewItemName(String newItemName) {
+            super.setNewItemName(newItemName);
+            // 名前欄の入力ごとに呼ばれる
+            this.query = newItemName != null ? newItemName : "";
+        }
+
+        @Override
+        public ItemStack quickMove(PlayerEntity player, int slot) {
+            return ItemStack.EMPTY;
+        }
+
+        @Override
+        public void onSlotClick(int slotIndex, int button, SlotActionType actionType, PlayerEntity clickingPlayer) {
+            if (slotIndex == RESULT_SLOT) {
+                String searchQuery = query.trim();
+                viewer.closeHandledScreen();
+                ServerScoreboardGUIv2.openSearch(viewer, searchQuery);
+                return;
+            }
+            // アイテムは動かさず、クライアントの表示を戻す
+            syncState();
+        }
+
+        @Override
+        public void onClosed(PlayerEntity player) {
+            // 紙をプレイヤーに返さない
+            this.input.clear();
+            super.onClosed(player);
+        }
+    }
+}
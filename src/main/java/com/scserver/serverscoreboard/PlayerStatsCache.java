@@ -51,6 +51,11 @@ public class PlayerStatsCache {
         return 0;
     }
     
+    // キャッシュされているプレイヤー数
+    public static int getCachedPlayerCount() {
+        return playerStatsCache.size();
+    }
+    
     // すべてのプレイヤーの特定の統計を取得
     public static Map<String, Integer> getAllPlayerStats(String statId) {
         Map<String, Integer> result = new HashMap<>();
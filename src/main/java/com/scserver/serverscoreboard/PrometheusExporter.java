@@ -0,0 +1,207 @@
+package com.scserver.serverscoreboard;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Prometheus形式のメトリクスをHTTPで公開（任意機能、デフォルト無効）
+ * 応答はModMetricsの集計済みの値のみから作成し、サーバースレッドには触れない
+ * 設定: config/serverscoreboard/metrics_exporter.json
+ */
+public class PrometheusExporter {
+    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static HttpServer httpServer;
+    private static ExecutorService executor;
+
+    /**
+     * 設定ファイルを読み込み、有効な場合はHTTPサーバーを起動
+     */
+    public static synchronized void start() {
+        if (httpServer != null) {
+            return;
+        }
+
+        JsonObject config = loadConfig();
+        if (config == null || !config.has("enabled") || !config.get("enabled").getAsBoolean()) {
+            return;
+        }
+        String bindAddress = config.has("bind") ? config.get("bind").getAsString() : "127.0.0.1";
+        int port = config.has("port") ? config.get("port").getAsInt() : 9464;
+
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress(bindAddress, port), 0);
+            server.createContext("/metrics", PrometheusExporter::handleMetrics);
+            executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "MySB-Metrics-Exporter");
+                thread.setDaemon(true);
+                return thread;
+            });
+            server.setExecutor(executor);
+            server.start();
+            httpServer = server;
+            ServerScoreboardLogger.info("Metrics exporter listening on http://" + bindAddress + ":" + port + "/metrics");
+        } catch (IOException e) {
+            ServerScoreboardLogger.error("Failed to start metrics exporter on " + bindAddress + ":" + port, e);
+            if (executor != null) {
+                executor.shutdownNow();
+                executor = null;
+            }
+        }
+    }
+
+    public static synchronized void stop() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+            httpServer = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    public static synchronized boolean isRunning() {
+        return httpServer != null;
+    }
+
+    private static JsonObject loadConfig() {
+        try {
+            File configDir = new File("config/serverscoreboard");
+            if (!configDir.exists()) {
+                configDir.mkdirs();
+            }
+
+            File file = new File(configDir, "metrics_exporter.json");
+            if (!file.exists()) {
+                // デフォルトの設定ファイルを作成（無効）
+                JsonObject defaultConfig = new JsonObject();
+                defaultConfig.addProperty("enabled", false);
+                defaultConfig.addProperty("bind", "127.0.0.1");
+                defaultConfig.addProperty("port", 9464);
+
+                try (FileWriter writer = new FileWriter(file)) {
+                    gson.toJson(defaultConfig, writer);
+                }
+                return defaultConfig;
+            }
+
+            try (FileReader reader = new FileReader(file)) {
+                return gson.fromJson(reader, JsonObject.class);
+            }
+        } catch (Exception e) {
+            ServerScoreboardLogger.error("Failed to load metrics exporter config: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void handleMetrics(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Prometheusのテキスト形式で出力
+     */
+    static String render() {
+        StringBuilder sb = new StringBuilder(4096);
+
+        // 処理時間（直近のサンプルの分位数と累計）
+        sb.append("# HELP mysb_stage_duration_seconds Time spent in each mod stage\n");
+        sb.append("# TYPE mysb_stage_duration_seconds summary\n");
+        for (ModMetrics.Timer timer : ModMetrics.getTimers()) {
+            ModMetrics.Snapshot snapshot = timer.snapshot();
+            appendSample(sb, "mysb_stage_duration_seconds", "stage", timer.name, "quantile", "0.5", seconds(snapshot.p50Nanos));
+            appendSample(sb, "mysb_stage_duration_seconds", "stage", timer.name, "quantile", "0.99", seconds(snapshot.p99Nanos));
+            appendSample(sb, "mysb_stage_duration_seconds_sum", "stage", timer.name, null, null, seconds(snapshot.totalNanos));
+            appendSample(sb, "mysb_stage_duration_seconds_count", "stage", timer.name, null, null, Long.toString(snapshot.count));
+        }
+        sb.append("# HELP mysb_stage_duration_max_seconds Longest observed duration of each mod stage\n");
+        sb.append("# TYPE mysb_stage_duration_max_seconds gauge\n");
+        for (ModMetrics.Timer timer : ModMetrics.getTimers()) {
+            appendSample(sb, "mysb_stage_duration_max_seconds", "stage", timer.name, null, null, seconds(timer.getMaxNanos()));
+        }
+
+        for (ModMetrics.Counter counter : ModMetrics.getCounters()) {
+            String metric = "mysb_" + counter.name + "_total";
+            sb.append("# TYPE ").append(metric).append(" counter\n");
+            appendSample(sb, metric, null, null, null, null, Long.toString(counter.get()));
+        }
+
+        sb.append("# HELP mysb_player_packets_sent_total Scoreboard packets sent to each online player\n");
+        sb.append("# TYPE mysb_player_packets_sent_total counter\n");
+        for (Map.Entry<String, Long> entry : ModMetrics.getPlayerPackets().entrySet()) {
+            appendSample(sb, "mysb_player_packets_sent_total", "player", entry.getKey(), null, null, Long.toString(entry.getValue()));
+        }
+
+        for (ModMetrics.Gauge gauge : ModMetrics.getGauges()) {
+            String metric = "mysb_" + gauge.name;
+            sb.append("# TYPE ").append(metric).append(" gauge\n");
+            appendSample(sb, metric, null, null, null, null, Long.toString(gauge.get()));
+        }
+        return sb.toString();
+    }
+
+    private static void appendSample(StringBuilder sb, String metric, String label, String value,
+                                     String extraLabel, String extraValue, String sample) {
+        sb.append(metric);
+        if (label != null) {
+            sb.append('{').append(label).append("=\"");
+            appendEscaped(sb, value);
+            sb.append('"');
+            if (extraLabel != null) {
+                sb.append(',').append(extraLabel).append("=\"");
+                appendEscaped(sb, extraValue);
+                sb.append('"');
+            }
+            sb.append('}');
+        }
+        sb.append(' ').append(sample).append('\n');
+    }
+
+    // ラベル値のエスケープ（\ " 改行）
+    private static void appendEscaped(StringBuilder sb, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                sb.append('\\').append(c);
+            } else if (c == '\n') {
+                sb.append("\\n");
+            } else {
+                sb.append(c);
+            }
+        }
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1_000_000_000.0);
+    }
+}
@@ -38,6 +38,8 @@ public class RateLimiter {
             if (allowed) {
                 // パケット送信統計を記録
                 NetworkLoadMonitor.recordPacketSent(estimatePacketSize());
+            } else {
+                ModMetrics.PACKETS_RATE_LIMITED.increment();
             }
             
             return allowed;
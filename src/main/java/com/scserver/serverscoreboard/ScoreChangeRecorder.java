@@ -0,0 +1,217 @@
+package com.scserver.serverscoreboard;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * デバッグモード用のスコア変更イベントの記録
+ * チャットに1件ずつ流す代わりに（オブジェクティブID, エントリID, 旧値, 新値, tick）を
+ * 固定サイズの配列に記録し、/mysb debug summary で集計して表示する
+ * 変化の多いオブジェクティブは1秒あたりの記録数を制限し、超えた分は件数のみ数える
+ */
+public class ScoreChangeRecorder {
+    private static final int TICKS_PER_SECOND = 20;
+    // エントリ名の数がこれを超えたら記録をリセットする（時間表示付きの名前などで増え続けないように）
+    private static final int MAX_ENTRY_IDS = 8192;
+
+    private static final int capacity = ServerScoreboardConfig.SCORE_EVENT_BUFFER_SIZE;
+    private static final int[] eventObjectives = new int[capacity];
+    private static final int[] eventEntries = new int[capacity];
+    private static final int[] eventOldValues = new int[capacity];
+    private static final int[] eventNewValues = new int[capacity];
+    private static final int[] eventTicks = new int[capacity];
+    private static int writeIndex = 0;
+    private static int eventCount = 0;
+
+    private static final Map<String, Integer> objectiveIds = new HashMap<>();
+    private static final List<ObjectiveCounter> objectives = new ArrayList<>();
+    private static final Map<String, Integer> entryIds = new HashMap<>();
+    private static final List<String> entryNames = new ArrayList<>();
+    private static int startTick = -1;
+
+    // オブジェクティブごとの変更件数
+    private static final class ObjectiveCounter {
+        final String name;
+        long seen = 0;
+        long recorded = 0;
+        int currentSecond = -1;
+        int recordedThisSecond = 0;
+
+        ObjectiveCounter(String name) {
+            this.name = name;
+        }
+    }
+
+    public static final class ObjectiveRate {
+        public final String objectiveName;
+        public final long changes;
+        public final long recorded;
+        public final double perSecond;
+
+        ObjectiveRate(String objectiveName, long changes, long recorded, double perSecond) {
+            this.objectiveName = objectiveName;
+            this.changes = changes;
+            this.recorded = recorded;
+            this.perSecond = perSecond;
+        }
+    }
+
+    public static final class EntryRate {
+        public final String objectiveName;
+        public final String entryName;
+        public final int lastOldValue;
+        public final int lastNewValue;
+        public final double perSecond;
+
+        EntryRate(String objectiveName, String entryName, int lastOldValue, int lastNewValue, double perSecond) {
+            this.objectiveName = objectiveName;
+            this.entryName = entryName;
+            this.lastOldValue = lastOldValue;
+            this.lastNewValue = lastNewValue;
+            this.perSecond = perSecond;
+        }
+    }
+
+    public static final class Summary {
+        public final double elapsedSeconds;
+        public final long totalChanges;
+        public final int bufferedEvents;
+        public final List<ObjectiveRate> topObjectives;
+        public final List<EntryRate> topEntries;
+
+        Summary(double elapsedSeconds, long totalChanges, int bufferedEvents, List<ObjectiveRate> topObjectives, List<EntryRate> topEntries) {
+            this.elapsedSeconds = elapsedSeconds;
+            this.totalChanges = totalChanges;
+            this.bufferedEvents = bufferedEvents;
+            this.topObjectives = topObjectives;
+            this.topEntries = topEntries;
+        }
+    }
+
+    /**
+     * スコア変更を記録
+     * @param objectiveName オブジェクティブ名
+     * @param entryName エントリ名（プレイヤー名など）
+     * @param oldValue 変更前のスコア
+     * @param newValue 変更後のスコア
+     * @param tick 変更したtick
+     */
+    public static synchronized void record(String objectiveName, String entryName, int oldValue, int newValue, int tick) {
+        if (startTick < 0) {
+            startTick = tick;
+        }
+
+        int objectiveId = objectiveId(objectiveName);
+        ObjectiveCounter counter = objectives.get(objectiveId);
+        counter.seen++;
+
+        // オブジェクティブごとのサンプリング（1秒あたりの記録数を制限）
+        int second = tick / TICKS_PER_SECOND;
+        if (counter.currentSecond != second) {
+            counter.currentSecond = second;
+            counter.recordedThisSecond = 0;
+        }
+        if (counter.recordedThisSecond >= ServerScoreboardConfig.SCORE_EVENT_SAMPLES_PER_SECOND) {
+            return;
+        }
+        counter.recordedThisSecond++;
+        counter.recorded++;
+
+        if (!entryIds.containsKey(entryName) && entryNames.size() >= MAX_ENTRY_IDS) {
+            clearEvents();
+        }
+        int entryId = entryIds.computeIfAbsent(entryName, k -> {
+            entryNames.add(k);
+            return entryNames.size() - 1;
+        });
+
+        eventObjectives[writeIndex] = objectiveId;
+        eventEntries[writeIndex] = entryId;
+        eventOldValues[writeIndex] = oldValue;
+        eventNewValues[writeIndex] = newValue;
+        eventTicks[writeIndex] = tick;
+        writeIndex = (writeIndex + 1) % capacity;
+        if (eventCount < capacity) {
+            eventCount++;
+        }
+    }
+
+    /**
+     * 変化の多いオブジェクティブ・エントリを集計
+     * エントリの頻度は保持しているイベントから求め、サンプリングで省いた分を補正する
+     * @param currentTick 現在のtick
+     * @param limit 表示する件数
+     */
+    public static synchronized Summary summarize(int currentTick, int limit) {
+        double elapsedSeconds = startTick < 0 ? 0 : Math.max(1.0, (currentTick - startTick) / (double) TICKS_PER_SECOND);
+
+        long totalChanges = 0;
+        List<ObjectiveRate> objectiveRates = new ArrayList<>();
+        for (ObjectiveCounter counter : objectives) {
+            totalChanges += counter.seen;
+            double perSecond = elapsedSeconds > 0 ? counter.seen / elapsedSeconds : 0;
+            objectiveRates.add(new ObjectiveRate(counter.name, counter.seen, counter.recorded, perSecond));
+        }
+        objectiveRates.sort((a, b) -> Long.compare(b.changes, a.changes));
+
+        // 保持しているイベントをエントリごとに集計（古い順に走査して最後の値を残す）
+        Map<Long, double[]> entryStats = new HashMap<>();
+        int oldest = (writeIndex - eventCount + capacity) % capacity;
+        int oldestTick = eventCount > 0 ? eventTicks[oldest] : currentTick;
+        for (int i = 0; i < eventCount; i++) {
+            int index = (oldest + i) % capacity;
+            ObjectiveCounter counter = objectives.get(eventObjectives[index]);
+            double weight = counter.recorded > 0 ? (double) counter.seen / counter.recorded : 1.0;
+            long key = ((long) eventObjectives[index] << 32) | (eventEntries[index] & 0xFFFFFFFFL);
+            double[] stats = entryStats.computeIfAbsent(key, k -> new double[3]);
+            stats[0] += weight;
+            stats[1] = eventOldValues[index];
+            stats[2] = eventNewValues[index];
+        }
+
+        double windowSeconds = Math.max(1.0, (currentTick - oldestTick) / (double) TICKS_PER_SECOND);
+        List<EntryRate> entryRates = new ArrayList<>();
+        for (Map.Entry<Long, double[]> entry : entryStats.entrySet()) {
+            int objectiveId = (int) (entry.getKey() >>> 32);
+            int entryId = (int) (long) entry.getKey();
+            double[] stats = entry.getValue();
+            entryRates.add(new EntryRate(objectives.get(objectiveId).name, entryNames.get(entryId),
+                (int) stats[1], (int) stats[2], stats[0] / windowSeconds));
+        }
+        entryRates.sort((a, b) -> Double.compare(b.perSecond, a.perSecond));
+
+        return new Summary(elapsedSeconds, totalChanges, eventCount,
+            Collections.unmodifiableList(objectiveRates.subList(0, Math.min(limit, objectiveRates.size()))),
+            Collections.unmodifiableList(entryRates.subList(0, Math.min(limit, entryRates.size()))));
+    }
+
+    /**
+     * 記録をすべて消去（デバッグモードを有効にしたとき）
+     */
+    public static synchronized void reset() {
+        clearEvents();
+        objectiveIds.clear();
+        objectives.clear();
+        startTick = -1;
+    }
+
+    private static int objectiveId(String objectiveName) {
+        Integer id = objectiveIds.get(objectiveName);
+        if (id == null) {
+            id = objectives.size();
+            objectives.add(new ObjectiveCounter(objectiveName));
+            objectiveIds.put(objectiveName, id);
+        }
+        return id;
+    }
+
+    private static void clearEvents() {
+        writeIndex = 0;
+        eventCount = 0;
+        entryIds.clear();
+        entryNames.clear();
+    }
+}
@@ -0,0 +1,485 @@
+package com.scserver.serverscoreboard;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * スコア変換の式（自動変換ルールの "expression"）
+ * 読み込み時に1回だけ解析し、intのみを扱う演算ノードの木にする（評価時にボクシングや解析は行わない）
+ *
+ * 使える要素:
+ * - 整数、value（元のスコア）、score("オブジェクティブ名")（同じエントリの別オブジェクティブのスコア、なければ0）
+ * - + - * / % と単項の -、括弧（除算は整数除算、0除算は0、オーバーフローはintの範囲に収める）
+ * - min(a, b) / max(a, b) / clamp(x, 下限, 上限) / abs(x)
+ *
+ * 例: value / 1200（tick→分）、value / 100000（cm→km）、clamp(value * 3 / 2, 0, 9999)、
+ *     value * 100 / max(score("deaths"), 1)
+ */
+public final class ScoreExpression {
+    private static final int MAX_LENGTH = 512;
+    private static final int MAX_DEPTH = 64;
+
+    /**
+     * score(...)で参照するオブジェクティブのスコアを返す
+     * slotはgetReferencedObjectives()の添字
+     */
+    @FunctionalInterface
+    public interface ScoreSource {
+        int score(int slot);
+    }
+
+    private final String source;
+    private final Node root;
+    private final List<String> referencedObjectives;
+
+    private ScoreExpression(String source, Node root, List<String> referencedObjectives) {
+        this.source = source;
+        this.root = root;
+        this.referencedObjectives = referencedObjectives;
+    }
+
+    /**
+     * 式を解析
+     * @throws IllegalArgumentException 式が不正な場合
+     */
+    public static ScoreExpression parse(String source) {
+        if (source == null || source.isBlank()) {
+            throw new IllegalArgumentException("Expression is empty");
+        }
+        if (source.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException("Expression is too long (max " + MAX_LENGTH + " characters)");
+        }
+        Parser parser = new Parser(source);
+        Node root = parser.parseExpression();
+        parser.skipWhitespace();
+        if (parser.pos < source.length()) {
+            throw parser.error("Unexpected '" + source.charAt(parser.pos) + "'");
+        }
+        return new ScoreExpression(source, root, Collections.unmodifiableList(parser.objectives));
+    }
+
+    /**
+     * 式を評価
+     * @param value 元のスコア
+     * @param scores 参照するオブジェクティブのスコア（nullの場合は0として扱う）
+     */
+    public int evaluate(int value, ScoreSource scores) {
+        return root.eval(value, scores);
+    }
+
+    public List<String> getReferencedObjectives() {
+        return referencedObjectives;
+    }
+
+    public boolean isConstant() {
+        return root instanceof Constant;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    // intの範囲に収める
+    private static int saturate(long value) {
+        if (value > Integer.MAX_VALUE) return Integer.MAX_VALUE;
+        if (value < Integer.MIN_VALUE) return Integer.MIN_VALUE;
+        return (int) value;
+    }
+
+    // ---- 演算ノード ----
+
+    private abstract static class Node {
+        abstract int eval(int value, ScoreSource scores);
+    }
+
+    private static final class Constant extends Node {
+        final int constant;
+
+        Constant(int constant) {
+            this.constant = constant;
+        }
+
+        @Override
+        int eval(int value, ScoreSource scores) {
+            return constant;
+        }
+    }
+
+    private abstract static class Unary extends Node {
+        final Node operand;
+
+        Unary(Node operand) {
+            this.operand = operand;
+        }
+    }
+
+    private abstract static class Binary extends Node {
+        final Node left, right;
+
+        Binary(Node left, Node right) {
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    private static final class Value extends Node {
+        @Override
+        int eval(int value, ScoreSource scores) {
+            return value;
+        }
+    }
+
+    private static final class ObjectiveScore extends Node {
+        final int slot;
+
+        ObjectiveScore(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        int eval(int value, ScoreSource scores) {
+            return scores != null ? scores.score(slot) : 0;
+        }
+    }
+
+    private static final class Negate extends Unary {
+        Negate(Node operand) {
+            super(operand);
+        }
+
+        @Override
+        int eval(int value, ScoreSource scores) {
+            return saturate(-(long) operand.eval(value, scores));
+        }
+    }
+
+    private static final class Abs extends Unary {
+        Abs(Node operand) {
+            super(operand);
+        }
+
+        @Override
+        int eval(int value, ScoreSource scores) {
+            return saturate(Math.abs((long) operand.eval(value, scores)));
+        }
+    }
+
+    private static final class Add extends Binary {
+        Add(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        int eval(int value, ScoreSource scores) {
+            return saturate((long) left.eval(value, scores) + right.eval(value, scores));
+        }
+    }
+
+    private static final class Subtract extends Binary {
+        Subtract(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        int eval(int value, ScoreSource scores) {
+            return saturate((long) left.eval(value, scores) - right.eval(value, scores));
+        }
+    }
+
+    private static final class Multiply extends Binary {
+        Multiply(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        int eval(int value, ScoreSource scores) {
+            return saturate((long) left.eval(value, scores) * right.eval(value, scores));
+        }
+    }
+
+    private static final class Divide extends Binary {
+        Divide(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        int eval(int value, ScoreSource scores) {
+            int divisor = right.eval(value, scores);
+            if (divisor == 0) return 0;
+            return saturate((long) left.eval(value, scores) / divisor);
+        }
+    }
+
+    private static final class Remainder extends Binary {
+        Remainder(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        int eval(int value, ScoreSource scores) {
+            int divisor = right.eval(value, scores);
+            if (divisor == 0) return 0;
+            return left.eval(value, scores) % divisor;
+        }
+    }
+
+    private static final class Min extends Binary {
+        Min(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        int eval(int value, ScoreSource scores) {
+            return Math.min(left.eval(value, scores), right.eval(value, scores));
+        }
+    }
+
+    private static final class Max extends Binary {
+        Max(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        int eval(int value, ScoreSource scores) {
+            return Math.max(left.eval(value, scores), right.eval(value, scores));
+        }
+    }
+
+    private static final class Clamp extends Node {
+        final Node operand, low, high;
+
+        Clamp(Node operand, Node low, Node high) {
+            this.operand = operand;
+            this.low = low;
+            this.high = high;
+        }
+
+        @Override
+        int eval(int value, ScoreSource scores) {
+            int result = operand.eval(value, scores);
+            int lowValue = low.eval(value, scores);
+            int highValue = high.eval(value, scores);
+            if (result < lowValue) return lowValue;
+            if (result > highValue) return highValue;
+            return result;
+        }
+    }
+
+    // ---- 解析（再帰下降） ----
+
+    private static final class Parser {
+        final String source;
+        final List<String> objectives = new ArrayList<>();
+        int pos = 0;
+        int depth = 0;
+
+        Parser(String source) {
+            this.source = source;
+        }
+
+        // expression := term (('+' | '-') term)*
+        Node parseExpression() {
+            if (++depth > MAX_DEPTH) {
+                throw error("Expression is nested too deeply");
+            }
+            Node node = parseTerm();
+            while (true) {
+                if (accept('+')) {
+                    node = fold(new Add(node, parseTerm()));
+                } else if (accept('-')) {
+                    node = fold(new Subtract(node, parseTerm()));
+                } else {
+                    break;
+                }
+            }
+            depth--;
+            return node;
+        }
+
+        // term := unary (('*' | '/' | '%') unary)*
+        Node parseTerm() {
+            Node node = parseUnary();
+            while (true) {
+                if (accept('*')) {
+                    node = fold(new Multiply(node, parseUnary()));
+                } else if (accept('/')) {
+                    node = fold(new Divide(node, parseUnary()));
+                } else if (accept('%')) {
+                    node = fold(new Remainder(node, parseUnary()));
+                } else {
+                    break;
+                }
+            }
+            return node;
+        }
+
+        // unary := '-' unary | primary
+        Node parseUnary() {
+            if (accept('-')) {
+                return fold(new Negate(parseUnary()));
+            }
+            accept('+');
+            return parsePrimary();
+        }
+
+        // primary := 整数 | '(' expression ')' | value | 関数呼び出し
+        Node parsePrimary() {
+            skipWhitespace();
+            if (pos >= source.length()) {
+                throw error("Unexpected end of expression");
+            }
+            char c = source.charAt(pos);
+            if (c == '(') {
+                pos++;
+                Node node = parseExpression();
+                expect(')');
+                return node;
+            }
+            if (isDigit(c)) {
+                return parseNumber();
+            }
+            if (Character.isLetter(c)) {
+                String name = parseIdentifier();
+                switch (name) {
+                    case "value":
+                        return new Value();
+                    case "score":
+                        return parseScoreReference();
+                    case "min": {
+                        Node[] args = parseArguments(name, 2);
+                        return fold(new Min(args[0], args[1]));
+                    }
+                    case "max": {
+                        Node[] args = parseArguments(name, 2);
+                        return fold(new Max(args[0], args[1]));
+                    }
+                    case "clamp": {
+                        Node[] args = parseArguments(name, 3);
+                        return fold(new Clamp(args[0], args[1], args[2]));
+                    }
+                    case "abs": {
+                        Node[] args = parseArguments(name, 1);
+                        return fold(new Abs(args[0]));
+                    }
+                    default:
+                        throw error("Unknown name '" + name + "'");
+                }
+            }
+            throw error("Unexpected '" + c + "'");
+        }
+
+        Node parseNumber() {
+            int start = pos;
+            while (pos < source.length() && isDigit(source.charAt(pos))) {
+                pos++;
+            }
+            try {
+                return new Constant(Integer.parseInt(source.substring(start, pos)));
+            } catch (NumberFormatException e) {
+                throw error("Number is out of range");
+            }
+        }
+
+        String parseIdentifier() {
+            int start = pos;
+            while (pos < source.length() && (Character.isLetterOrDigit(source.charAt(pos)) || source.charAt(pos) == '_')) {
+                pos++;
+            }
+            return source.substring(start, pos);
+        }
+
+        // score("オブジェクティブ名")
+        Node parseScoreReference() {
+            expect('(');
+            skipWhitespace();
+            int quote = pos < source.length() ? source.charAt(pos) : -1;
+            if (quote != '"' && quote != '\'') {
+                throw error("score() expects a quoted objective name");
+            }
+            int end = source.indexOf(quote, pos + 1);
+            if (end < 0) {
+                throw error("Unterminated objective name");
+            }
+            String objectiveName = source.substring(pos + 1, end);
+            if (objectiveName.isEmpty()) {
+                throw error("Objective name is empty");
+            }
+            pos = end + 1;
+            expect(')');
+
+            int slot = objectives.indexOf(objectiveName);
+            if (slot < 0) {
+                slot = objectives.size();
+                objectives.add(objectiveName);
+            }
+            return new ObjectiveScore(slot);
+        }
+
+        Node[] parseArguments(String name, int count) {
+            expect('(');
+            Node[] args = new Node[count];
+            for (int i = 0; i < count; i++) {
+                if (i > 0 && !accept(',')) {
+                    throw error(name + "() expects " + count + " arguments");
+                }
+                args[i] = parseExpression();
+            }
+            if (!accept(')')) {
+                throw error(name + "() expects " + count + " arguments");
+            }
+            return args;
+        }
+
+        // 定数だけの演算は解析時に計算しておく
+        Node fold(Node node) {
+            boolean constant;
+            if (node instanceof Unary) {
+                constant = ((Unary) node).operand instanceof Constant;
+            } else if (node instanceof Binary) {
+                Binary binary = (Binary) node;
+                constant = binary.left instanceof Constant && binary.right instanceof Constant;
+            } else if (node instanceof Clamp) {
+                Clamp clamp = (Clamp) node;
+                constant = clamp.operand instanceof Constant && clamp.low instanceof Constant && clamp.high instanceof Constant;
+            } else {
+                constant = false;
+            }
+            return constant ? new Constant(node.eval(0, null)) : node;
+        }
+
+        boolean accept(char expected) {
+            skipWhitespace();
+            if (pos < source.length() && source.charAt(pos) == expected) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        void expect(char expected) {
+            if (!accept(expected)) {
+                throw error("Expected '" + expected + "'");
+            }
+        }
+
+        void skipWhitespace() {
+            while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        static boolean isDigit(char c) {
+            return c >= '0' && c <= '9';
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + (pos + 1) + " in \"" + source + "\"");
+        }
+    }
+}
@@ -15,7 +15,8 @@ import java.util.*;
 
 public class ScoreboardAutoTransform {
     private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
-    private static AutoTransformConfig config = new AutoTransformConfig();
+    // 設定とコンパイル済みルールの組（再読み込み時は丸ごと差し替える）
+    private static volatile CompiledRuleSet active = CompiledRuleSet.compile(new AutoTransformConfig());
     private static MinecraftServer server;
     private static File configFile;
 
@@ -36,18 +37,19 @@ public class ScoreboardAutoTransform {
             if (configFile.exists()) {
                 try (FileReader reader = new FileReader(configFile)) {
                     JsonObject json = JsonParser.parseReader(reader).getAsJsonObject();
-                    config = GSON.fromJson(json, AutoTransformConfig.class);
-                    ServerScoreboardLogger.info("Loaded auto-transform configuration");
+                    AutoTransformConfig loaded = GSON.fromJson(json, AutoTransformConfig.class);
+                    active = CompiledRuleSet.compile(loaded);
+                    ServerScoreboardLogger.info("Loaded auto-transform configuration (" + active.rules.size() + " rules)");
                 }
             } else {
                 // デフォルト設定を作成
-                createDefaultConfig();
+                active = CompiledRuleSet.compile(createDefaultConfig());
                 saveConfig();
                 ServerScoreboardLogger.info("Created default auto-transform configuration");
             }
         } catch (Exception e) {
             ServerScoreboardLogger.error("Failed to load auto-transform config", e);
-            config = new AutoTransformConfig();
+            active = CompiledRuleSet.compile(new AutoTransformConfig());
         }
     }
 
@@ -57,7 +59,7 @@ public class ScoreboardAutoTransform {
         try {
             configFile.getParentFile().mkdirs();
             try (FileWriter writer = new FileWriter(configFile)) {
-                GSON.toJson(config, writer);
+                GSON.toJson(active.config, writer);
                 ServerScoreboardLogger.info("Saved auto-transform configuration");
             }
         } catch (Exception e) {
@@ -65,8 +67,8 @@ public class ScoreboardAutoTransform {
         }
     }
 
-    private static void createDefaultConfig() {
-        config = new AutoTransformConfig();
+    private static AutoTransformConfig createDefaultConfig() {
+        AutoTransformConfig config = new AutoTransformConfig();
         config.enabled = false; // デフォルトで無効
         config.autoApplyToNewPlayers = false;
         
@@ -88,45 +90,26 @@ public class ScoreboardAutoTransform {
         deathsRule.scoreOffsets = new HashMap<>();
         
         config.transformRules = Arrays.asList(pointsRule, killsRule, deathsRule);
+        return config;
     }
 
     public static boolean shouldAutoTransform(String objectiveName) {
-        if (!config.enabled) return false;
-        
-        return config.transformRules.stream()
-                .anyMatch(rule -> rule.objectiveName.equals(objectiveName));
+        return getRule(objectiveName) != null;
     }
 
-    public static ScoreboardTransformData createTransformData(UUID playerId, String objectiveName) {
-        if (!config.enabled) return null;
-        
-        TransformRule rule = config.transformRules.stream()
-                .filter(r -> r.objectiveName.equals(objectiveName))
-                .findFirst()
-                .orElse(null);
-        
-        if (rule == null) return null;
-        
-        ScoreboardTransformData transformData = new ScoreboardTransformData(playerId);
-        
-        // 表示名の変換を設定
-        if (rule.newDisplayName != null && !rule.newDisplayName.isEmpty()) {
-            transformData.setObjectiveDisplayNameMapping(objectiveName, rule.newDisplayName);
-        }
-        
-        // スコアオフセットを設定
-        if (rule.scoreOffsets != null) {
-            rule.scoreOffsets.forEach((playerName, offset) -> {
-                transformData.setScoreValueOffset(objectiveName, playerName, offset);
-            });
-        }
-        
-        transformData.setEnabled(true);
-        return transformData;
+    /**
+     * オブジェクティブのコンパイル済みルールを取得（全プレイヤーで共有、O(1)）
+     * @return ルール（自動変換が無効、またはルールがない場合はnull）
+     */
+    public static CompiledRule getRule(String objectiveName) {
+        CompiledRuleSet current = active;
+        if (!current.enabled || objectiveName == null) return null;
+        return current.rules.get(objectiveName);
     }
 
     public static boolean isAutoApplyEnabled() {
-        return config.enabled && config.autoApplyToNewPlayers;
+        CompiledRuleSet current = active;
+        return current.enabled && current.autoApplyToNewPlayers;
     }
 
     public static void reloadConfig() {
@@ -135,11 +118,11 @@ public class ScoreboardAutoTransform {
     }
 
     public static AutoTransformConfig getConfig() {
-        return config;
+        return active.config;
     }
 
     public static void setConfig(AutoTransformConfig newConfig) {
-        config = newConfig;
+        active = CompiledRuleSet.compile(newConfig);
         saveConfig();
     }
 
@@ -153,5 +136,91 @@ public class ScoreboardAutoTransform {
         public String objectiveName;
         public String newDisplayName;
         public Map<String, Integer> scoreOffsets = new HashMap<>();
+        // スコアの変換式（ScoreExpressionを参照、例: "value / 1200"）。オフセットは式の結果に加算される
+        public String expression;
+    }
+
+    /**
+     * 読み込み時に変換ルールから作成する不変のルール
+     */
+    public static final class CompiledRule {
+        public final String objectiveName;
+        // 変換後の表示名（変更しない場合はnull）
+        public final String displayName;
+        // スコアの変換式（指定なし、または不正な場合はnull）
+        public final ScoreExpression expression;
+        private final Map<String, Integer> scoreOffsets;
+
+        private CompiledRule(TransformRule rule) {
+            this.objectiveName = rule.objectiveName;
+            this.displayName = rule.newDisplayName == null || rule.newDisplayName.isEmpty() ? null : rule.newDisplayName;
+            Map<String, Integer> offsets = new HashMap<>();
+            if (rule.scoreOffsets != null) {
+                rule.scoreOffsets.forEach((name, offset) -> {
+                    if (name != null && offset != null && offset != 0) {
+                        offsets.put(name, offset);
+                    }
+                });
+            }
+            this.scoreOffsets = Map.copyOf(offsets);
+            this.expression = compileExpression(rule);
+        }
+
+        private static ScoreExpression compileExpression(TransformRule rule) {
+            if (rule.expression == null || rule.expression.isBlank()) {
+                return null;
+            }
+            try {
+                return ScoreExpression.parse(rule.expression);
+            } catch (IllegalArgumentException e) {
+                ServerScoreboardLogger.warn("Ignoring invalid expression for auto-transform rule " + rule.objectiveName + ": " + e.getMessage());
+                return null;
+            }
+        }
+
+        /**
+         * 元のスコアに変換式とオフセットを適用
+         * @param scores 式のscore(...)が参照するスコア（nullの場合は0）
+         */
+        public int transform(String scoreName, int originalValue, ScoreExpression.ScoreSource scores) {
+            int value = expression != null ? expression.evaluate(originalValue, scores) : originalValue;
+            Integer offset = scoreOffsets.get(scoreName);
+            return offset != null ? value + offset : value;
+        }
+
+        public int getScoreOffset(String scoreName) {
+            Integer offset = scoreOffsets.get(scoreName);
+            return offset != null ? offset : 0;
+        }
+    }
+
+    private static final class CompiledRuleSet {
+        final AutoTransformConfig config;
+        final boolean enabled;
+        final boolean autoApplyToNewPlayers;
+        final Map<String, CompiledRule> rules;
+
+        private CompiledRuleSet(AutoTransformConfig config, Map<String, CompiledRule> rules) {
+            this.config = config;
+            this.enabled = config.enabled;
+            this.autoApplyToNewPlayers = config.autoApplyToNewPlayers;
+            this.rules = rules;
+        }
+
+        static CompiledRuleSet compile(AutoTransformConfig config) {
+            if (config == null) {
+                config = new AutoTransformConfig();
+            }
+            Map<String, CompiledRule> rules = new HashMap<>();
+            if (config.transformRules != null) {
+                for (TransformRule rule : config.transformRules) {
+                    // 同じオブジェクティブのルールが複数ある場合は最初のものを使う
+                    if (rule != null && rule.objectiveName != null && !rules.containsKey(rule.objectiveName)) {
+                        rules.put(rule.objectiveName, new CompiledRule(rule));
+                    }
+                }
+            }
+            return new CompiledRuleSet(config, Map.copyOf(rules));
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,208 @@
+package com.scserver.serverscoreboard;
+
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtList;
+import net.minecraft.scoreboard.Scoreboard;
+import net.minecraft.scoreboard.ScoreboardObjective;
+import net.minecraft.scoreboard.ScoreboardPlayerScore;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.WorldSavePath;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * scoreboard.datの肥大化対策
+ * MODが書き込んだエントリ（時間表示付きの名前や$SERVER_TOTALなど）を追跡し、
+ * 現在書き込んでいないものを削除する
+ */
+public class ScoreboardCompactor {
+    // オブジェクティブ名 -> MODが最後に書き込んだエントリ名
+    private static final Map<String, Set<String>> ownedEntries = new ConcurrentHashMap<>();
+
+    /**
+     * MODが所有するエントリを記録
+     * @param objectiveName オブジェクティブ名
+     * @param entries 現在書き込まれているエントリ名
+     */
+    public static void trackOwnedEntries(String objectiveName, Set<String> entries) {
+        ownedEntries.put(objectiveName, Collections.unmodifiableSet(new HashSet<>(entries)));
+    }
+
+    public static void forgetObjective(String objectiveName) {
+        ownedEntries.remove(objectiveName);
+    }
+
+    // scoreboard.datの規模
+    public static final class Report {
+        public final int objectives;
+        public final int entries;
+        public final int totalStatEntries;
+        public final long estimatedBytes;
+        public final long saveMicros;
+        public final long fileBytes;
+
+        Report(int objectives, int entries, int totalStatEntries, long estimatedBytes, long saveMicros, long fileBytes) {
+            this.objectives = objectives;
+            this.entries = entries;
+            this.totalStatEntries = totalStatEntries;
+            this.estimatedBytes = estimatedBytes;
+            this.saveMicros = saveMicros;
+            this.fileBytes = fileBytes;
+        }
+    }
+
+    public static final class Result {
+        public final Report before;
+        public final Report after;
+        public final int removedEntries;
+        public final int removedObjectives;
+
+        Result(Report before, Report after, int removedEntries, int removedObjectives) {
+            this.before = before;
+            this.after = after;
+            this.removedEntries = removedEntries;
+            this.removedObjectives = removedObjectives;
+        }
+    }
+
+    /**
+     * 現在のスコアボードの規模を計測
+     * 保存時間はバニラと同じ構造のNBTを圧縮して書き出す時間で見積もる
+     */
+    public static Report measure(MinecraftServer server) {
+        Scoreboard scoreboard = server.getScoreboard();
+        NbtList objectiveList = new NbtList();
+        NbtList scoreList = new NbtList();
+        int entries = 0;
+        int totalStatEntries = 0;
+
+        long start = System.nanoTime();
+        for (ScoreboardObjective objective : scoreboard.getObjectives()) {
+            NbtCompound objectiveNbt = new NbtCompound();
+            objectiveNbt.putString("Name", objective.getName());
+            objectiveNbt.putString("CriteriaName", objective.getCriterion().getName());
+            objectiveNbt.putString("DisplayName", objective.getDisplayName().getString());
+            objectiveList.add(objectiveNbt);
+
+            boolean totalObjective = TotalStatsManager.isTotalObjective(objective.getName());
+            for (ScoreboardPlayerScore score : scoreboard.getAllPlayerScores(objective)) {
+                NbtCompound scoreNbt = new NbtCompound();
+                scoreNbt.putString("Name", score.getPlayerName());
+                scoreNbt.putString("Objective", objective.getName());
+                scoreNbt.putInt("Score", score.getScore());
+                scoreNbt.putBoolean("Locked", false);
+                scoreList.add(scoreNbt);
+                entries++;
+                if (totalObjective) {
+                    totalStatEntries++;
+                }
+            }
+        }
+
+        NbtCompound data = new NbtCompound();
+        data.put("Objectives", objectiveList);
+        data.put("PlayerScores", scoreList);
+        NbtCompound root = new NbtCompound();
+        root.put("data", data);
+
+        long estimatedBytes = -1;
+        try {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            NbtIo.writeCompressed(root, output);
+            estimatedBytes = output.size();
+        } catch (IOException e) {
+            ServerScoreboardLogger.error("Failed to estimate scoreboard.dat size", e);
+        }
+        long saveMicros = (System.nanoTime() - start) / 1000;
+
+        File scoreboardFile = server.getSavePath(WorldSavePath.ROOT).resolve("data/scoreboard.dat").toFile();
+        long fileBytes = scoreboardFile.exists() ? scoreboardFile.length() : -1;
+
+        return new Report(objectiveList.size(), entries, totalStatEntries, estimatedBytes, saveMicros, fileBytes);
+    }
+
+    /**
+     * 圧縮を実行し、前後の規模を計測する（コマンド用）
+     */
+    public static Result compact(MinecraftServer server) {
+        Report before = measure(server);
+        int[] removed = removeStaleEntries(server);
+        Report after = measure(server);
+        ServerScoreboardLogger.info("Compacted scoreboard: removed " + removed[0] + " entries, " + removed[1] +
+            " objectives (entries " + before.entries + " -> " + after.entries +
+            ", estimated save " + before.saveMicros + "us -> " + after.saveMicros + "us)");
+        return new Result(before, after, removed[0], removed[1]);
+    }
+
+    /**
+     * MODが所有する古いエントリと、無効な統計・以前のカスタムスコアボードのオブジェクティブを削除（計測なし）
+     * @return {削除したエントリ数, 削除したオブジェクティブ数}
+     */
+    public static int[] removeStaleEntries(MinecraftServer server) {
+        Scoreboard scoreboard = server.getScoreboard();
+        int removedEntries = 0;
+        int removedObjectives = 0;
+
+        Set<String> enabledStats = TotalStatsManager.getEnabledStats();
+        Set<String> knownStats = TotalStatsManager.getAllAvailableStats().keySet();
+        List<ScoreboardObjective> objectives = new ArrayList<>(scoreboard.getObjectives());
+        for (ScoreboardObjective objective : objectives) {
+            String objectiveName = objective.getName();
+            if (CustomScoreboardPacketSender.isLegacyCustomObjectiveName(objectiveName)) {
+                // 以前のバージョンが登録したカスタムスコアボード（現在はパケットのみで送信する）
+                scoreboard.removeObjective(objective);
+                removedObjectives++;
+                continue;
+            }
+            if (!TotalStatsManager.isTotalObjective(objectiveName)) {
+                continue;
+            }
+
+            String statId = objectiveName.substring("total_".length());
+            if (!knownStats.contains(statId)) {
+                // MODの統計ではない（ユーザーが作成したオブジェクティブ）
+                continue;
+            }
+
+            if (!enabledStats.contains(statId) || TotalStatsManager.isVirtualMode()) {
+                // 無効な統計・仮想モードではオブジェクティブごと不要
+                scoreboard.removeObjective(objective);
+                forgetObjective(objectiveName);
+                removedObjectives++;
+                continue;
+            }
+
+            Set<String> owned = ownedEntries.get(objectiveName);
+            if (owned == null) {
+                // まだ書き込んでいない統計は判断できないのでスキップ
+                continue;
+            }
+
+            List<String> staleEntries = new ArrayList<>();
+            for (ScoreboardPlayerScore score : scoreboard.getAllPlayerScores(objective)) {
+                if (!owned.contains(score.getPlayerName())) {
+                    staleEntries.add(score.getPlayerName());
+                }
+            }
+            for (String entry : staleEntries) {
+                scoreboard.resetPlayerScore(entry, objective);
+                removedEntries++;
+            }
+        }
+
+        if (removedEntries > 0 || removedObjectives > 0) {
+            ServerScoreboardLogger.debug("Removed " + removedEntries + " stale entries and " + removedObjectives + " unused total objectives");
+        }
+        return new int[] { removedEntries, removedObjectives };
+    }
+}
@@ -0,0 +1,298 @@
+package com.scserver.serverscoreboard;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * オブジェクティブごとの順位インデックス
+ * スコア降順・名前昇順で並べた順序統計木（treap）をスコアの変更ごとに更新し、
+ * 上位N件・順位の取得・上位ウィンドウの出入りをO(log n)で求める
+ */
+public class ScoreboardRankIndex {
+    // オブジェクティブ名 -> 順位インデックス
+    private static final ConcurrentHashMap<String, RankedObjective> indexes = new ConcurrentHashMap<>();
+    // 統計値の順位はオブジェクティブの実エントリ（時間表示付きの名前など）と別に管理する
+    // ':' はオブジェクティブ名に使えないため衝突しない
+    private static final String STAT_KEY_PREFIX = "stat:";
+
+    public static String statKey(String statId) {
+        return STAT_KEY_PREFIX + statId;
+    }
+
+    /**
+     * オブジェクティブの順位インデックスを取得
+     * @param objectiveName オブジェクティブ名
+     * @return 順位インデックス（未作成の場合はnull）
+     */
+    public static RankedObjective get(String objectiveName) {
+        return indexes.get(objectiveName);
+    }
+
+    /**
+     * スコアの変更を反映（インデックスがなければ作成）
+     * @return true: 変化あり、false: 同じスコア
+     */
+    public static boolean updateScore(String objectiveName, String playerName, int score) {
+        return indexes.computeIfAbsent(objectiveName, k -> new RankedObjective()).put(playerName, score);
+    }
+
+    public static boolean removeScore(String objectiveName, String playerName) {
+        RankedObjective index = indexes.get(objectiveName);
+        return index != null && index.remove(playerName);
+    }
+
+    /**
+     * 登録せずにスコア一覧から順位インデックスを作成（一時的な並べ替え用）
+     */
+    public static RankedObjective build(Map<String, Integer> scores) {
+        RankedObjective index = new RankedObjective();
+        for (Map.Entry<String, Integer> entry : scores.entrySet()) {
+            index.put(entry.getKey(), entry.getValue());
+        }
+        return index;
+    }
+
+    public static void removeObjective(String objectiveName) {
+        indexes.remove(objectiveName);
+    }
+
+    // 順位付きエントリ（不変）
+    public static final class RankedEntry {
+        public final String playerName;
+        public final int score;
+
+        RankedEntry(String playerName, int score) {
+            this.playerName = playerName;
+            this.score = score;
+        }
+    }
+
+    // 上位ウィンドウ（順位順）と、前回のウィンドウから外れたエントリ
+    public static final class WindowDelta {
+        public final List<RankedEntry> window;
+        public final List<String> left;
+
+        WindowDelta(List<RankedEntry> window, List<String> left) {
+            this.window = window;
+            this.left = left;
+        }
+    }
+
+    // treapのノード（サブツリーサイズ付き）
+    private static final class Node {
+        final String name;
+        final int score;
+        final int priority;
+        int size = 1;
+        Node left;
+        Node right;
+
+        Node(String name, int score) {
+            this.name = name;
+            this.score = score;
+            this.priority = ThreadLocalRandom.current().nextInt();
+        }
+    }
+
+    public static class RankedObjective {
+        private final HashMap<String, Integer> scores = new HashMap<>();
+        private Node root;
+
+        /**
+         * スコアを設定する
+         * @return true: 変化あり、false: 同じスコア
+         */
+        public synchronized boolean put(String playerName, int score) {
+            Integer oldScore = scores.put(playerName, score);
+            if (oldScore != null) {
+                if (oldScore == score) {
+                    return false;
+                }
+                root = delete(root, oldScore, playerName);
+            }
+            root = insert(root, new Node(playerName, score));
+            return true;
+        }
+
+        public synchronized boolean remove(String playerName) {
+            Integer oldScore = scores.remove(playerName);
+            if (oldScore == null) {
+                return false;
+            }
+            root = delete(root, oldScore, playerName);
+            return true;
+        }
+
+        /**
+         * プレイヤーの順位を取得
+         * @return 1始まりの順位、未登録の場合は-1
+         */
+        public synchronized int getRank(String playerName) {
+            Integer score = scores.get(playerName);
+            if (score == null) {
+                return -1;
+            }
+            return countBefore(root, score, playerName) + 1;
+        }
+
+        /**
+         * 上位N件を順位順に取得
+         */
+        public synchronized List<RankedEntry> getTopN(int n) {
+            List<RankedEntry> result = new ArrayList<>(Math.min(Math.max(n, 0), size(root)));
+            collect(root, result, n);
+            return result;
+        }
+
+        /**
+         * 全エントリを順位順に取得
+         */
+        public synchronized List<RankedEntry> getAll() {
+            return getTopN(Integer.MAX_VALUE);
+        }
+
+        /**
+         * 上位ウィンドウと、前回のウィンドウから外れたエントリを求める
+         * @param previousWindow 前回ウィンドウに含まれていたプレイヤー名
+         * @param windowSize ウィンドウの大きさ（サイドバーなら15）
+         */
+        public synchronized WindowDelta diffTopWindow(Set<String> previousWindow, int windowSize) {
+            List<RankedEntry> top = getTopN(windowSize);
+            Set<String> window = new HashSet<>();
+            for (RankedEntry entry : top) {
+                window.add(entry.playerName);
+            }
+
+            List<String> left = new ArrayList<>();
+            if (previousWindow != null) {
+                for (String name : previousWindow) {
+                    if (!window.contains(name)) {
+                        left.add(name);
+                    }
+                }
+            }
+            return new WindowDelta(Collections.unmodifiableList(top), left);
+        }
+
+        // スコア降順、同点は名前昇順（バニラのサイドバーと同じく大文字小文字を区別しない）
+        private static int compare(int scoreA, String nameA, int scoreB, String nameB) {
+            if (scoreA != scoreB) {
+                return scoreA > scoreB ? -1 : 1;
+            }
+            int cmp = nameA.compareToIgnoreCase(nameB);
+            return cmp != 0 ? cmp : nameA.compareTo(nameB);
+        }
+
+        private static int size(Node node) {
+            return node == null ? 0 : node.size;
+        }
+
+        private static void update(Node node) {
+            node.size = 1 + size(node.left) + size(node.right);
+        }
+
+        private static Node insert(Node node, Node newNode) {
+            if (node == null) {
+                return newNode;
+            }
+            if (newNode.priority > node.priority) {
+                // 新ノードを根にしてキーで分割
+                Node[] parts = split(node, newNode.score, newNode.name);
+                newNode.left = parts[0];
+                newNode.right = parts[1];
+                update(newNode);
+                return newNode;
+            }
+            if (compare(newNode.score, newNode.name, node.score, node.name) < 0) {
+                node.left = insert(node.left, newNode);
+            } else {
+                node.right = insert(node.right, newNode);
+            }
+            update(node);
+            return node;
+        }
+
+        // キーより前のノードと後のノードに分割
+        private static Node[] split(Node node, int score, String name) {
+            if (node == null) {
+                return new Node[] { null, null };
+            }
+            if (compare(node.score, node.name, score, name) < 0) {
+                Node[] parts = split(node.right, score, name);
+                node.right = parts[0];
+                update(node);
+                return new Node[] { node, parts[1] };
+            }
+            Node[] parts = split(node.left, score, name);
+            node.left = parts[1];
+            update(node);
+            return new Node[] { parts[0], node };
+        }
+
+        private static Node merge(Node left, Node right) {
+            if (left == null) return right;
+            if (right == null) return left;
+            if (left.priority > right.priority) {
+                left.right = merge(left.right, right);
+                update(left);
+                return left;
+            }
+            right.left = merge(left, right.left);
+            update(right);
+            return right;
+        }
+
+        private static Node delete(Node node, int score, String name) {
+            if (node == null) {
+                return null;
+            }
+            int cmp = compare(score, name, node.score, node.name);
+            if (cmp == 0) {
+                return merge(node.left, node.right);
+            }
+            if (cmp < 0) {
+                node.left = delete(node.left, score, name);
+            } else {
+                node.right = delete(node.right, score, name);
+            }
+            update(node);
+            return node;
+        }
+
+        private static int countBefore(Node node, int score, String name) {
+            int count = 0;
+            while (node != null) {
+                int cmp = compare(score, name, node.score, node.name);
+                if (cmp == 0) {
+                    return count + size(node.left);
+                }
+                if (cmp < 0) {
+                    node = node.left;
+                } else {
+                    count += size(node.left) + 1;
+                    node = node.right;
+                }
+            }
+            return count;
+        }
+
+        // 中間順走査で先頭からlimit件を収集
+        private static void collect(Node node, List<RankedEntry> result, int limit) {
+            if (node == null || result.size() >= limit) {
+                return;
+            }
+            collect(node.left, result, limit);
+            if (result.size() < limit) {
+                result.add(new RankedEntry(node.name, node.score));
+                collect(node.right, result, limit);
+            }
+        }
+    }
+}
@@ -3,11 +3,17 @@ package com.scserver.serverscoreboard;
 import net.minecraft.nbt.NbtCompound;
 import java.util.*;
 
+/**
+ * プレイヤーごとの変換設定
+ * 自動変換のルールはScoreboardAutoTransformの共有ルールを参照し、ここにはプレイヤー個別の上書きのみを保持する
+ */
 public class ScoreboardTransformData {
     private final UUID playerId;
     private final Map<String, String> objectiveDisplayNameMappings = new HashMap<>();
     private final Map<String, Map<String, Integer>> scoreValueOffsets = new HashMap<>();
     private boolean enabled = false;
+    // 自動変換ルールを適用するか
+    private boolean autoRulesApplied = false;
 
     public ScoreboardTransformData(UUID playerId) {
         this.playerId = playerId;
@@ -23,20 +29,70 @@ public class ScoreboardTransformData {
     }
 
     public String getTransformedDisplayName(String objectiveName) {
-        return objectiveDisplayNameMappings.get(objectiveName);
+        String displayName = objectiveDisplayNameMappings.get(objectiveName);
+        if (displayName == null && autoRulesApplied) {
+            ScoreboardAutoTransform.CompiledRule rule = ScoreboardAutoTransform.getRule(objectiveName);
+            if (rule != null) {
+                displayName = rule.displayName;
+            }
+        }
+        return displayName;
     }
 
     public int getTransformedScoreValue(String objectiveName, String scoreName, int originalValue) {
+        return getTransformedScoreValue(objectiveName, scoreName, originalValue, null);
+    }
+
+    /**
+     * 変換後のスコアを取得
+     * 自動変換ルールの式を適用し、プレイヤー個別のオフセットがあればルールのオフセットの代わりに加算する
+     * @param scores ルールの式が参照する他のオブジェクティブのスコア（nullの場合は0）
+     */
+    public int getTransformedScoreValue(String objectiveName, String scoreName, int originalValue,
+                                        ScoreExpression.ScoreSource scores) {
         Map<String, Integer> offsets = scoreValueOffsets.get(objectiveName);
-        if (offsets != null) {
-            Integer offset = offsets.get(scoreName);
-            if (offset != null) {
-                return originalValue + offset;
-            }
+        return transformScore(getAutoRule(objectiveName), offsets != null ? offsets.get(scoreName) : null,
+            scoreName, originalValue, scores);
+    }
+
+    private static int transformScore(ScoreboardAutoTransform.CompiledRule rule, Integer offset, String scoreName,
+                                      int originalValue, ScoreExpression.ScoreSource scores) {
+        if (offset != null) {
+            int value = rule != null && rule.expression != null
+                ? rule.expression.evaluate(originalValue, scores) : originalValue;
+            return value + offset;
+        }
+        if (rule != null) {
+            return rule.transform(scoreName, originalValue, scores);
         }
         return originalValue;
     }
 
+    /**
+     * オブジェクティブに対する実際の変換内容を取得
+     * 内容が同じプレイヤー同士は等しい値になるため、変換結果を共有するキーとして使える
+     */
+    public EffectiveTransform getEffectiveTransform(String objectiveName) {
+        Map<String, Integer> offsets = scoreValueOffsets.get(objectiveName);
+        return new EffectiveTransform(objectiveName, getTransformedDisplayName(objectiveName),
+            offsets != null ? Map.copyOf(offsets) : Map.of(), getAutoRule(objectiveName));
+    }
+
+    /**
+     * このプレイヤーに適用される自動変換ルール（ない場合はnull）
+     */
+    public ScoreboardAutoTransform.CompiledRule getAutoRule(String objectiveName) {
+        return autoRulesApplied ? ScoreboardAutoTransform.getRule(objectiveName) : null;
+    }
+
+    public void setAutoRulesApplied(boolean autoRulesApplied) {
+        this.autoRulesApplied = autoRulesApplied;
+    }
+
+    public boolean isAutoRulesApplied() {
+        return autoRulesApplied;
+    }
+
     public void setEnabled(boolean enabled) {
         this.enabled = enabled;
     }
@@ -49,6 +105,7 @@ public class ScoreboardTransformData {
         objectiveDisplayNameMappings.clear();
         scoreValueOffsets.clear();
         enabled = false;
+        autoRulesApplied = false;
     }
 
     public UUID getPlayerId() {
@@ -58,6 +115,7 @@ public class ScoreboardTransformData {
     public NbtCompound toNbt() {
         NbtCompound nbt = new NbtCompound();
         nbt.putBoolean("enabled", enabled);
+        nbt.putBoolean("autoRulesApplied", autoRulesApplied);
         
         // オブジェクティブ表示名マッピングを保存
         NbtCompound displayMappingsNbt = new NbtCompound();
@@ -82,6 +140,7 @@ public class ScoreboardTransformData {
     
     public void fromNbt(NbtCompound nbt) {
         this.enabled = nbt.getBoolean("enabled");
+        this.autoRulesApplied = nbt.getBoolean("autoRulesApplied");
         
         // オブジェクティブ表示名マッピングを読み込み
         objectiveDisplayNameMappings.clear();
@@ -106,4 +165,56 @@ public class ScoreboardTransformData {
             }
         }
     }
+
+    /**
+     * 1つのオブジェクティブに対する変換内容（表示名・プレイヤー個別のオフセット・自動変換ルール）
+     * 自動変換ルールは読み込み時に作成された共有インスタンスのため、同一性で比較する
+     */
+    public static final class EffectiveTransform {
+        public final String objectiveName;
+        // 変換後の表示名（変更しない場合はnull）
+        public final String displayName;
+        private final Map<String, Integer> offsets;
+        private final ScoreboardAutoTransform.CompiledRule rule;
+        private final int hash;
+
+        EffectiveTransform(String objectiveName, String displayName, Map<String, Integer> offsets,
+                           ScoreboardAutoTransform.CompiledRule rule) {
+            this.objectiveName = objectiveName;
+            this.displayName = displayName;
+            this.offsets = offsets;
+            this.rule = rule;
+            this.hash = Objects.hash(objectiveName, displayName, offsets, System.identityHashCode(rule));
+        }
+
+        public int transform(String scoreName, int originalValue, ScoreExpression.ScoreSource scores) {
+            return transformScore(rule, offsets.get(scoreName), scoreName, originalValue, scores);
+        }
+
+        // 変換式のscore(...)が参照するオブジェクティブ
+        public List<String> getReferencedObjectives() {
+            return rule != null && rule.expression != null ? rule.expression.getReferencedObjectives() : Collections.emptyList();
+        }
+
+        public ScoreExpression getExpression() {
+            return rule != null ? rule.expression : null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof EffectiveTransform)) return false;
+            EffectiveTransform other = (EffectiveTransform) o;
+            return hash == other.hash
+                && rule == other.rule
+                && objectiveName.equals(other.objectiveName)
+                && Objects.equals(displayName, other.displayName)
+                && offsets.equals(other.offsets);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
 }
\ No newline at end of file
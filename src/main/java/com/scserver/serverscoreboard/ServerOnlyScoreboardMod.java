@@ -52,22 +52,25 @@ public class ServerOnlyScoreboardMod implements DedicatedServerModInitializer {
         
         // プレイヤーのアクションイベント（統計のリアルタイム更新用）
         PlayerBlockBreakEvents.AFTER.register((world, player, pos, state, entity) -> {
+            long start = ModMetrics.EVENT_BLOCK_BREAK.start();
             if (!world.isClient && player instanceof ServerPlayerEntity) {
                 // デバッグログ
-                ServerScoreboardLogger.debug(String.format("ブロック破壊: %s が %s を破壊しました (位置: %s)", 
+                ServerScoreboardLogger.debug(() -> String.format("ブロック破壊: %s が %s を破壊しました (位置: %s)", 
                     player.getName().getString(), 
                     state.getBlock().getName().getString(), 
                     pos.toString()));
                 
                 // ブロック破壊時に統計を強制更新
-                world.getServer().execute(() -> TotalStatsManager.forceUpdateAllStats());
+                world.getServer().execute(ServerOnlyScoreboardMod::forceUpdateStats);
             }
+            ModMetrics.EVENT_BLOCK_BREAK.stop(start);
         });
         
         UseBlockCallback.EVENT.register((player, world, hand, hitResult) -> {
+            long start = ModMetrics.EVENT_USE_BLOCK.start();
             if (!world.isClient && player instanceof ServerPlayerEntity) {
                 // デバッグログ（ブロック設置の可能性）
-                if (player.getStackInHand(hand) != null && !player.getStackInHand(hand).isEmpty()) {
+                if (ServerScoreboardLogger.isDebugEnabled() && player.getStackInHand(hand) != null && !player.getStackInHand(hand).isEmpty()) {
                     ServerScoreboardLogger.debug(String.format("ブロック使用: %s が %s を使用しました (位置: %s)", 
                         player.getName().getString(), 
                         player.getStackInHand(hand).getName().getString(), 
@@ -78,45 +81,52 @@ public class ServerOnlyScoreboardMod implements DedicatedServerModInitializer {
                 if (world.getServer() != null) {
                     world.getServer().execute(() -> {
                         // 少し遅延させて統計が確実に更新されるようにする
-                        world.getServer().execute(() -> TotalStatsManager.forceUpdateAllStats());
+                        world.getServer().execute(ServerOnlyScoreboardMod::forceUpdateStats);
                     });
                 }
             }
+            ModMetrics.EVENT_USE_BLOCK.stop(start);
             return ActionResult.PASS;
         });
         
         ServerLivingEntityEvents.AFTER_DEATH.register((entity, damageSource) -> {
+            long start = ModMetrics.EVENT_ENTITY_DEATH.start();
             // エンティティ死亡時に統計を強制更新
             if (entity.getServer() != null) {
-                entity.getServer().execute(() -> TotalStatsManager.forceUpdateAllStats());
+                entity.getServer().execute(ServerOnlyScoreboardMod::forceUpdateStats);
             }
+            ModMetrics.EVENT_ENTITY_DEATH.stop(start);
         });
         
         // アイテム使用時のイベント
         UseItemCallback.EVENT.register((player, world, hand) -> {
+            long start = ModMetrics.EVENT_USE_ITEM.start();
             if (!world.isClient && player instanceof ServerPlayerEntity) {
                 // アイテム使用時に統計を強制更新（1tick後）
                 if (player.getServer() != null) {
                     player.getServer().execute(() -> {
-                        player.getServer().execute(() -> TotalStatsManager.forceUpdateAllStats());
+                        player.getServer().execute(ServerOnlyScoreboardMod::forceUpdateStats);
                     });
                 }
             }
+            ModMetrics.EVENT_USE_ITEM.stop(start);
             return TypedActionResult.pass(player.getStackInHand(hand));
         });
         
         // エンティティ攻撃時のイベント（キル統計用）
         AttackEntityCallback.EVENT.register((player, world, hand, entity, hitResult) -> {
+            long start = ModMetrics.EVENT_ATTACK_ENTITY.start();
             if (!world.isClient && player instanceof ServerPlayerEntity) {
                 // 攻撃時に統計を強制更新（2tick後、キルが確定してから）
                 if (player.getServer() != null) {
                     player.getServer().execute(() -> {
                         player.getServer().execute(() -> {
-                            player.getServer().execute(() -> TotalStatsManager.forceUpdateAllStats());
+                            player.getServer().execute(ServerOnlyScoreboardMod::forceUpdateStats);
                         });
                     });
                 }
             }
+            ModMetrics.EVENT_ATTACK_ENTITY.stop(start);
             return ActionResult.PASS;
         });
     }
@@ -134,9 +144,15 @@ public class ServerOnlyScoreboardMod implements DedicatedServerModInitializer {
         // scoreboard.datファイルの読み込み（TotalStatsManager設定も含む）
         ServerScoreboardManager.loadScoreboardData(server);
         
+        // オブジェクティブの検索インデックスを作成（最初の検索・サジェストで全件を並べないように）
+        ObjectiveIndex.get(server);
+        
         // Discord Botの初期化
         SimpleDiscordBot.getInstance().initialize(server);
         
+        // メトリクスのHTTP公開（設定で有効な場合のみ）
+        PrometheusExporter.start();
+        
         // デバッグモードの状態をログに記録
         if (ServerScoreboardConfig.DEBUG_MODE_ENABLED) {
             ServerScoreboardLogger.info("Debug mode is ENABLED");
@@ -144,16 +160,27 @@ public class ServerOnlyScoreboardMod implements DedicatedServerModInitializer {
     }
 
     private void onServerStopping(MinecraftServer server) {
+        // ワールド保存前にMODが残した古いエントリを削除
+        ScoreboardCompactor.removeStaleEntries(server);
+        
         // サーバー停止時にデータを保存
         ServerScoreboardManager.saveScoreboardData(server);
         
+        // 検索インデックスと復元待ちを破棄（次のサーバーのオブジェクティブと混ざらないように）
+        ObjectiveIndex.clearAll();
+        JoinRestoreQueue.clearAll();
+        
         // プレイヤー統計キャッシュを保存
         PlayerStatsCache.saveCache();
         
-        // Discord Botのシャットダウン
-        if (SimpleDiscordBot.getInstance().isRunning()) {
-            SimpleDiscordBot.getInstance().shutdown();
-        }
+        // Discord Botのシャットダウン（起動処理の途中でも停止する）
+        SimpleDiscordBot.getInstance().shutdown();
+        
+        // メトリクスのHTTP公開を停止
+        PrometheusExporter.stop();
+        
+        // 残りのログを書き出してロガーを停止
+        ServerScoreboardLogger.shutdown();
     }
 
     private void onPlayerJoin(net.minecraft.server.network.ServerPlayNetworkHandler handler, net.fabricmc.fabric.api.networking.v1.PacketSender sender, MinecraftServer server) {
@@ -167,15 +194,49 @@ public class ServerOnlyScoreboardMod implements DedicatedServerModInitializer {
     }
 
     private void onServerTick(MinecraftServer server) {
+        long tickStart = ModMetrics.MOD_TICK.start();
+        
         // 定期的にクライアントのスコアボード状態を更新
+        long start = ModMetrics.CLIENT_SCOREBOARDS.start();
         ServerScoreboardManager.updateClientScoreboards(server);
+        ModMetrics.CLIENT_SCOREBOARDS.stop(start);
         
         // 毎ティックで統計をチェック（変更がある場合のみ更新）
+        start = ModMetrics.TOTAL_STATS.start();
         TotalStatsManager.updateAllTotalStats();
+        ModMetrics.TOTAL_STATS.stop(start);
+        
+        // 溜まったデバッグメッセージをOPにまとめて送信
+        start = ModMetrics.DEBUG_BROADCAST.start();
+        ServerScoreboardLogger.flushDebugBroadcasts(server);
+        ModMetrics.DEBUG_BROADCAST.stop(start);
+        
+        // オブジェクティブの追加・削除を検索インデックスに反映
+        // （Discordのオートコンプリートは別スレッドから、ここで公開したインデックスのみを参照する）
+        start = ModMetrics.OBJECTIVE_INDEX.start();
+        ObjectiveIndex.get(server);
+        ModMetrics.OBJECTIVE_INDEX.stop(start);
+        
+        // 1秒ごとにメトリクスの現在値を更新
+        if (server.getTicks() % 20 == 0) {
+            ModMetrics.sampleGauges(server);
+        }
         
         // 5分ごとにキャッシュを保存（300秒 * 20 ticks/秒 = 6000 ticks）
         if (server.getTicks() % 6000 == 0) {
+            start = ModMetrics.SAVE_CACHE.start();
             PlayerStatsCache.saveCache();
+            ModMetrics.SAVE_CACHE.stop(start);
+            ScoreboardCompactor.removeStaleEntries(server);
         }
+        
+        ModMetrics.MOD_TICK.stop(tickStart);
+    }
+    
+    // イベントから予約された統計の強制更新
+    private static void forceUpdateStats() {
+        long start = ModMetrics.FORCED_STAT_UPDATE.start();
+        TotalStatsManager.forceUpdateAllStats();
+        ModMetrics.FORCED_STAT_UPDATE.stop(start);
     }
 }
\ No newline at end of file
@@ -10,11 +10,11 @@ import net.minecraft.server.command.ServerCommandSource;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.text.Text;
 import net.minecraft.util.Formatting;
-import net.minecraft.scoreboard.ScoreboardObjective;
 
 import java.util.concurrent.CompletableFuture;
 import java.util.Set;
 import java.util.Map;
+import java.util.Locale;
 import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
@@ -22,6 +22,8 @@ import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 
 public class ServerScoreboardCommands {
+    // オブジェクティブのサジェストの最大件数（数千件あるサーバーで全件を送らないように）
+    private static final int MAX_OBJECTIVE_SUGGESTIONS = 100;
 
     public static void register(CommandDispatcher<ServerCommandSource> dispatcher) {
         dispatcher.register(CommandManager.literal("mysb")
@@ -29,6 +31,11 @@ public class ServerScoreboardCommands {
                 .then(CommandManager.literal("reload")
                         .requires(source -> source.hasPermissionLevel(4)) // OPレベル4（最高権限）のみ
                         .executes(ServerScoreboardCommands::reloadScoreboard))
+                .then(CommandManager.literal("search")
+                        .executes(context -> openSearchGUI(context, ""))
+                        .then(CommandManager.argument("query", StringArgumentType.greedyString())
+                                .suggests(ServerScoreboardCommands::suggestObjectives)
+                                .executes(context -> openSearchGUI(context, StringArgumentType.getString(context, "query")))))
                 .then(CommandManager.literal("total")
                         .requires(source -> source.hasPermissionLevel(0)) // 権限レベル0（全員使用可能）
                         .executes(ServerScoreboardCommands::showTotalHelp) // /mysb totalでヘルプ表示
@@ -81,7 +88,17 @@ public class ServerScoreboardCommands {
                                                 .suggests(ServerScoreboardCommands::suggestEnabledStats)
                                                 .executes(ServerScoreboardCommands::disableStat)))
                                 .then(CommandManager.literal("list")
-                                        .executes(ServerScoreboardCommands::listStatStatus))))
+                                        .executes(ServerScoreboardCommands::listStatStatus))
+                                .then(CommandManager.literal("virtual")
+                                        .requires(source -> source.hasPermissionLevel(4)) // OP権限レベル4
+                                        .executes(ServerScoreboardCommands::showVirtualMode)
+                                        .then(CommandManager.literal("on")
+                                                .executes(context -> setVirtualMode(context, true)))
+                                        .then(CommandManager.literal("off")
+                                                .executes(context -> setVirtualMode(context, false)))))
+                        .then(CommandManager.literal("compact")
+                                .requires(source -> source.hasPermissionLevel(4)) // OP権限レベル4
+                                .executes(ServerScoreboardCommands::compactScoreboard)))
                 .then(CommandManager.literal("discord")
                         .requires(source -> source.hasPermissionLevel(0)) // 権限レベル0（全員使用可能）
                         .then(CommandManager.literal("setchannel")
@@ -118,7 +135,15 @@ public class ServerScoreboardCommands {
                         .then(CommandManager.literal("on")
                                 .executes(ServerScoreboardCommands::enableDebugMode))
                         .then(CommandManager.literal("off")
-                                .executes(ServerScoreboardCommands::disableDebugMode)))
+                                .executes(ServerScoreboardCommands::disableDebugMode))
+                        .then(CommandManager.literal("summary")
+                                .executes(ServerScoreboardCommands::showDebugSummary)))
+                .then(CommandManager.literal("metrics")
+                        .requires(source -> source.hasPermissionLevel(2)) // OP権限レベル2
+                        .executes(ServerScoreboardCommands::showMetrics)
+                        .then(CommandManager.literal("reset")
+                                .requires(source -> source.hasPermissionLevel(4)) // OP権限レベル4
+                                .executes(ServerScoreboardCommands::resetMetrics)))
                 .then(CommandManager.literal("version")
                         .executes(ServerScoreboardCommands::showVersion))
         );
@@ -172,6 +197,34 @@ public class ServerScoreboardCommands {
         }
     }
 
+    private static int openSearchGUI(CommandContext<ServerCommandSource> context, String query) {
+        try {
+            ServerCommandSource source = context.getSource();
+            if (source.getEntity() instanceof ServerPlayerEntity player) {
+                // Rate limit check
+                if (!RateLimiter.canPerformAction(player.getUuid(), "gui", ServerScoreboardConfig.GUI_OPEN_COOLDOWN_MS)) {
+                    source.sendError(Text.literal("コマンドを実行するには少し待ってください"));
+                    return 0;
+                }
+                
+                if (query.isBlank()) {
+                    // 検索語の入力画面を開く
+                    ObjectiveSearchGUI.openFor(player, "");
+                } else {
+                    ServerScoreboardGUIv2.openSearch(player, query);
+                }
+                return 1;
+            } else {
+                source.sendError(Text.literal("このコマンドはプレイヤーのみ実行できます"));
+                return 0;
+            }
+        } catch (Exception e) {
+            ServerScoreboardLogger.error("Error executing search command", e);
+            context.getSource().sendError(Text.literal("コマンド実行中にエラーが発生しました: " + e.getMessage()));
+            return 0;
+        }
+    }
+
     private static int reloadScoreboard(CommandContext<ServerCommandSource> context) {
         try {
             // レート制限チェック（コンソールからの実行も含む）
@@ -367,6 +420,69 @@ public class ServerScoreboardCommands {
         }
     }
     
+    private static int showVirtualMode(CommandContext<ServerCommandSource> context) {
+        boolean virtual = TotalStatsManager.isVirtualMode();
+        context.getSource().sendFeedback(
+            Text.literal("統計の仮想モード: " + (virtual ? "有効（パケットのみで送信）" : "無効（サーバースコアボードに保存）"))
+                .formatted(virtual ? Formatting.GREEN : Formatting.YELLOW),
+            false
+        );
+        return 1;
+    }
+    
+    private static int setVirtualMode(CommandContext<ServerCommandSource> context, boolean enabled) {
+        try {
+            TotalStatsManager.setVirtualMode(enabled);
+            
+            context.getSource().sendFeedback(
+                Text.literal(enabled ? "統計の仮想モードを有効にしました（scoreboard.datに書き込みません）" : "統計の仮想モードを無効にしました")
+                    .formatted(enabled ? Formatting.GREEN : Formatting.YELLOW),
+                true
+            );
+            
+            return 1;
+        } catch (Exception e) {
+            ServerScoreboardLogger.error("Error switching virtual mode", e);
+            context.getSource().sendError(Text.literal("仮想モードの切り替え中にエラーが発生しました: " + e.getMessage()));
+            return 0;
+        }
+    }
+    
+    private static int compactScoreboard(CommandContext<ServerCommandSource> context) {
+        try {
+            ScoreboardCompactor.Result result = ScoreboardCompactor.compact(context.getSource().getServer());
+            
+            context.getSource().sendFeedback(Text.literal("=== scoreboard.dat 圧縮結果 ===").formatted(Formatting.GOLD), false);
+            context.getSource().sendFeedback(
+                Text.literal("削除: エントリ " + result.removedEntries + " 件, オブジェクティブ " + result.removedObjectives + " 件")
+                    .formatted(Formatting.GREEN),
+                true
+            );
+            sendCompactionReport(context, "圧縮前", result.before);
+            sendCompactionReport(context, "圧縮後", result.after);
+            
+            return 1;
+        } catch (Exception e) {
+            ServerScoreboardLogger.error("Error compacting scoreboard", e);
+            context.getSource().sendError(Text.literal("スコアボードの圧縮中にエラーが発生しました: " + e.getMessage()));
+            return 0;
+        }
+    }
+    
+    private static void sendCompactionReport(CommandContext<ServerCommandSource> context, String label, ScoreboardCompactor.Report report) {
+        context.getSource().sendFeedback(
+            Text.literal(label + ": オブジェクティブ " + report.objectives + " / エントリ " + report.entries +
+                " (統計 " + report.totalStatEntries + ")").formatted(Formatting.YELLOW),
+            false
+        );
+        context.getSource().sendFeedback(
+            Text.literal("  推定サイズ " + report.estimatedBytes + " bytes / 推定保存時間 " +
+                String.format("%.2f", report.saveMicros / 1000.0) + " ms" +
+                (report.fileBytes >= 0 ? " / 現在のファイル " + report.fileBytes + " bytes" : "")).formatted(Formatting.GRAY),
+            false
+        );
+    }
+    
     private static int showTotalHelp(CommandContext<ServerCommandSource> context) {
         context.getSource().sendFeedback(Text.literal("=== トータル統計コマンドの使い方 ===").formatted(Formatting.GOLD), false);
         context.getSource().sendFeedback(Text.literal(""), false);
@@ -537,9 +653,18 @@ public class ServerScoreboardCommands {
     private static int addDiscordObjective(CommandContext<ServerCommandSource> context) {
         String objective = StringArgumentType.getString(context, "objective");
         
+        ServerCommandSource source = context.getSource();
         try {
-            SimpleDiscordBot.getInstance().addScoreboard(objective);
-            context.getSource().sendFeedback(Text.literal("Discord連携を追加しました: " + objective).formatted(Formatting.GREEN), true);
+            // スレッドの作成は非同期で行い、完了したらサーバースレッドで結果を通知する
+            CompletableFuture<Void> result = SimpleDiscordBot.getInstance().addScoreboard(objective);
+            source.sendFeedback(Text.literal("Discordにスレッドを作成しています: " + objective).formatted(Formatting.YELLOW), false);
+            result.whenComplete((v, e) -> source.getServer().execute(() -> {
+                if (e == null) {
+                    source.sendFeedback(Text.literal("Discord連携を追加しました: " + objective).formatted(Formatting.GREEN), true);
+                } else {
+                    source.sendError(Text.literal("Discord連携の追加に失敗しました: " + DiscordRestClient.describe(e)));
+                }
+            }));
         } catch (IllegalStateException e) {
             context.getSource().sendError(Text.literal(e.getMessage()));
             return 0;
@@ -610,15 +735,24 @@ public class ServerScoreboardCommands {
     }
     
     private static CompletableFuture<Suggestions> suggestObjectives(CommandContext<ServerCommandSource> context, SuggestionsBuilder builder) {
-        for (ScoreboardObjective objective : context.getSource().getServer().getScoreboard().getObjectives()) {
-            builder.suggest(objective.getName());
+        // 入力中の文字列で検索インデックスを引き、一致するものだけを送る（名前の前方一致が先）
+        ObjectiveIndex index = ObjectiveIndex.get(context.getSource().getServer());
+        for (ObjectiveIndex.Entry entry : index.search(builder.getRemaining(), true, MAX_OBJECTIVE_SUGGESTIONS)) {
+            if (entry.displayName.equals(entry.name)) {
+                builder.suggest(entry.name);
+            } else {
+                builder.suggest(entry.name, Text.literal(entry.displayName));
+            }
         }
         return builder.buildFuture();
     }
     
     private static CompletableFuture<Suggestions> suggestDiscordObjectives(CommandContext<ServerCommandSource> context, SuggestionsBuilder builder) {
+        String remaining = builder.getRemainingLowerCase();
         for (String objective : SimpleDiscordBot.getInstance().getForumThreads().keySet()) {
-            builder.suggest(objective);
+            if (objective.toLowerCase(Locale.ROOT).contains(remaining)) {
+                builder.suggest(objective);
+            }
         }
         return builder.buildFuture();
     }
@@ -628,11 +762,17 @@ public class ServerScoreboardCommands {
             ServerCommandSource source = context.getSource();
             source.sendFeedback(Text.literal("Discord Botを再起動しています...").formatted(Formatting.YELLOW), true);
             
-            SimpleDiscordBot.getInstance().reload(source.getServer());
-            
-            // 再起動完了メッセージを表示
-            source.sendFeedback(Text.literal("Discord Botの再起動が完了しました").formatted(Formatting.GREEN), true);
-            ServerScoreboardLogger.info("Discord Bot reloaded successfully");
+            SimpleDiscordBot.getInstance().reload(source.getServer())
+                .whenComplete((v, e) -> source.getServer().execute(() -> {
+                    if (e == null) {
+                        // 再起動完了メッセージを表示
+                        source.sendFeedback(Text.literal("Discord Botの再起動が完了しました").formatted(Formatting.GREEN), true);
+                        ServerScoreboardLogger.info("Discord Bot reloaded successfully");
+                    } else {
+                        ServerScoreboardLogger.error("Error reloading Discord bot: " + DiscordRestClient.describe(e));
+                        source.sendError(Text.literal("Discord Botの再起動中にエラーが発生しました: " + DiscordRestClient.describe(e)));
+                    }
+                }));
             
             return 1;
         } catch (Exception e) {
@@ -646,6 +786,7 @@ public class ServerScoreboardCommands {
         ServerScoreboardConfig.DEBUG_MODE_ENABLED = !ServerScoreboardConfig.DEBUG_MODE_ENABLED;
         
         if (ServerScoreboardConfig.DEBUG_MODE_ENABLED) {
+            ScoreChangeRecorder.reset();
             context.getSource().sendFeedback(
                 Text.literal("デバッグモードが有効になりました").formatted(Formatting.GREEN), 
                 true
@@ -664,6 +805,7 @@ public class ServerScoreboardCommands {
     
     private static int enableDebugMode(CommandContext<ServerCommandSource> context) {
         ServerScoreboardConfig.DEBUG_MODE_ENABLED = true;
+        ScoreChangeRecorder.reset();
         context.getSource().sendFeedback(
             Text.literal("デバッグモードが有効になりました").formatted(Formatting.GREEN), 
             true
@@ -693,6 +835,83 @@ public class ServerScoreboardCommands {
         return 1;
     }
     
+    private static int showDebugSummary(CommandContext<ServerCommandSource> context) {
+        try {
+            ServerCommandSource source = context.getSource();
+            ScoreChangeRecorder.Summary summary = ScoreChangeRecorder.summarize(source.getServer().getTicks(), 5);
+            
+            if (summary.totalChanges == 0) {
+                source.sendFeedback(Text.literal(ServerScoreboardConfig.DEBUG_MODE_ENABLED ?
+                    "記録されたスコア変更はありません" :
+                    "記録されたスコア変更はありません（/mysb debug on で記録を開始します）").formatted(Formatting.YELLOW), false);
+                return 1;
+            }
+            
+            source.sendFeedback(Text.literal("=== スコア変更サマリー ===").formatted(Formatting.GOLD), false);
+            source.sendFeedback(Text.literal(String.format("記録期間: %.0f秒 / 変更: %d件 / 保持イベント: %d件",
+                summary.elapsedSeconds, summary.totalChanges, summary.bufferedEvents)).formatted(Formatting.GRAY), false);
+            
+            source.sendFeedback(Text.literal("変化の多いオブジェクティブ:").formatted(Formatting.YELLOW), false);
+            for (ScoreChangeRecorder.ObjectiveRate rate : summary.topObjectives) {
+                source.sendFeedback(Text.literal(String.format("  %s: %.1f/秒 (%d件、記録 %d件)",
+                    rate.objectiveName, rate.perSecond, rate.changes, rate.recorded)).formatted(Formatting.WHITE), false);
+            }
+            
+            source.sendFeedback(Text.literal("変化の多いエントリ:").formatted(Formatting.YELLOW), false);
+            for (ScoreChangeRecorder.EntryRate rate : summary.topEntries) {
+                source.sendFeedback(Text.literal(String.format("  %s - %s: %.2f/秒 (最新 %d → %d)",
+                    rate.objectiveName, rate.entryName, rate.perSecond, rate.lastOldValue, rate.lastNewValue)).formatted(Formatting.WHITE), false);
+            }
+            return 1;
+        } catch (Exception e) {
+            ServerScoreboardLogger.error("Error showing debug summary", e);
+            context.getSource().sendError(Text.literal("サマリーの表示中にエラーが発生しました"));
+            return 0;
+        }
+    }
+    
+    private static int showMetrics(CommandContext<ServerCommandSource> context) {
+        try {
+            ServerCommandSource source = context.getSource();
+            source.sendFeedback(Text.literal("=== MySB メトリクス（直近1024回、µs） ===").formatted(Formatting.GOLD), false);
+            
+            ModMetrics.Snapshot tick = ModMetrics.MOD_TICK.snapshot();
+            if (tick.count > 0) {
+                // 1tick = 50ms に対する割合
+                source.sendFeedback(Text.literal(String.format("ティック占有率: 平均 %.2f%% / p99 %.2f%%",
+                    tick.meanNanos / 500_000.0, tick.p99Nanos / 500_000.0)).formatted(Formatting.AQUA), false);
+            }
+            
+            for (ModMetrics.Timer timer : ModMetrics.getTimers()) {
+                ModMetrics.Snapshot snapshot = timer.snapshot();
+                if (snapshot.count == 0) {
+                    continue;
+                }
+                source.sendFeedback(Text.literal(timer.displayName).formatted(Formatting.YELLOW)
+                    .append(Text.literal(String.format(" p50 %.1f / p99 %.1f / max %.1f (%d回)",
+                        snapshot.p50Nanos / 1000.0, snapshot.p99Nanos / 1000.0, snapshot.maxNanos / 1000.0, snapshot.count))
+                        .formatted(Formatting.WHITE)), false);
+            }
+            
+            for (ModMetrics.Counter counter : ModMetrics.getCounters()) {
+                source.sendFeedback(Text.literal(counter.displayName + ": ").formatted(Formatting.GRAY)
+                    .append(Text.literal(String.valueOf(counter.get())).formatted(Formatting.WHITE)), false);
+            }
+            return 1;
+        } catch (Exception e) {
+            ServerScoreboardLogger.error("Error showing metrics", e);
+            context.getSource().sendError(Text.literal("メトリクスの表示中にエラーが発生しました"));
+            return 0;
+        }
+    }
+    
+    private static int resetMetrics(CommandContext<ServerCommandSource> context) {
+        ModMetrics.resetAll();
+        context.getSource().sendFeedback(Text.literal("メトリクスをリセットしました").formatted(Formatting.GREEN), true);
+        ServerScoreboardLogger.info("Metrics reset by " + context.getSource().getName());
+        return 1;
+    }
+    
     private static int showVersion(CommandContext<ServerCommandSource> context) {
         context.getSource().sendFeedback(
             Text.literal("MySB - My Scoreboard").formatted(Formatting.GOLD)
@@ -12,6 +12,15 @@ public class ServerScoreboardConfig {
     
     // 更新頻度設定
     public static final int UPDATE_INTERVAL_TICKS = 20; // スコアボード更新間隔（tick）
+    public static int JOIN_RESTORE_DELAY_TICKS = 2; // ログインから保存されたスコアボードを復元するまでのtick数（クライアントの初期化待ち）
+    public static int JOIN_RESTORE_MAX_PER_TICK = 5; // 1tickあたりに復元するプレイヤー数の上限（大勢の同時ログイン時に分散する）
+    
+    // サイドバー表示ウィンドウ設定
+    public static final int SIDEBAR_VISIBLE_LINES = 15; // バニラクライアントがサイドバーに表示できる最大行数
+    public static boolean SIDEBAR_WINDOW_ENABLED = true; // 表示可能な範囲（上位＋自分＋合計）のみを送信するか
+    
+    // トータル統計設定
+    public static boolean TOTAL_STATS_VIRTUAL_MODE = false; // 統計をサーバースコアボードに書き込まず、表示中のプレイヤーにパケットのみで送信するか
     
     // 自己変更機能の権限設定
     public static final boolean ALLOW_SELF_MODIFICATION = true; // プレイヤーが自分のスコアボードを変更できるか
@@ -28,6 +37,13 @@ public class ServerScoreboardConfig {
     public static boolean DEBUG_MODE_ENABLED = false; // デバッグモードの有効/無効
     public static boolean DEBUG_BROADCAST_TO_OPS = true; // デバッグメッセージをOP権限者にのみ送信
     public static int DEBUG_LOG_OP_LEVEL = 2; // デバッグログを受信するのに必要なOPレベル
+    public static int DEBUG_BROADCAST_INTERVAL_TICKS = 20; // デバッグメッセージをまとめてOPに送信する間隔（tick）
+    public static int DEBUG_BROADCAST_MAX_LINES = 5; // 1回の送信で表示するデバッグメッセージの最大行数
+    public static final int SCORE_EVENT_BUFFER_SIZE = 4096; // デバッグモードで保持するスコア変更イベント数
+    public static int SCORE_EVENT_SAMPLES_PER_SECOND = 20; // オブジェクティブごとに1秒あたり記録するスコア変更イベントの上限（超えた分は件数のみ集計）
+    
+    // ログ設定
+    public static final int LOG_BUFFER_CAPACITY = 8192; // 非同期ログのバッファ容量（満杯時は破棄して件数を記録）
     
     public static boolean isValidObjectiveName(String name) {
         if (name == null || name.trim().isEmpty()) {
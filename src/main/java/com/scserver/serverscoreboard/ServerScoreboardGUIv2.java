@@ -5,7 +5,6 @@ import net.minecraft.entity.player.PlayerInventory;
 import net.minecraft.inventory.Inventory;
 import net.minecraft.inventory.SimpleInventory;
 import net.minecraft.item.ItemStack;
-import net.minecraft.item.Items;
 import net.minecraft.screen.GenericContainerScreenHandler;
 import net.minecraft.screen.ScreenHandler;
 import net.minecraft.screen.ScreenHandlerType;
@@ -15,8 +14,6 @@ import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.text.Text;
 import net.minecraft.util.Formatting;
 
-import java.util.List;
-import java.util.ArrayList;
 
 public class ServerScoreboardGUIv2 {
     private static final int GUI_SIZE = 54;
@@ -28,147 +25,40 @@ public class ServerScoreboardGUIv2 {
     
     public static void openFor(ServerPlayerEntity player, GUIPage page) {
         SimpleInventory inventory = new SimpleInventory(GUI_SIZE);
-        
-        switch (page) {
-            case STATISTICS:
-                setupStatisticsGUI(inventory, player, 0);
-                break;
-            case SCOREBOARD:
-                setupScoreboardGUI(inventory, player, 0);
-                break;
-        }
+        // ページの内容はキャッシュから複製する（オブジェクティブや統計が変わった場合のみ作り直す）
+        GuiPageCache.PageModel model = GuiPageCache.getPage(player.getServer(), pageTypeOf(page), 0);
+        model.applyTo(inventory);
         
         player.openHandledScreen(new net.minecraft.screen.SimpleNamedScreenHandlerFactory(
-                (syncId, playerInventory, playerEntity) -> new ServerScoreboardScreenHandler(syncId, playerInventory, inventory, player, page),
+                (syncId, playerInventory, playerEntity) -> new ServerScoreboardScreenHandler(syncId, playerInventory, inventory, player, page, model),
                 Text.literal(page == GUIPage.STATISTICS ? "統計選択" : "スコアボード選択")
         ));
     }
     
-    private static void setupStatisticsGUI(SimpleInventory inventory, ServerPlayerEntity player, int page) {
-        inventory.clear();
-        
-        // Slot 0: Scoreboard button (compass icon)
-        ItemStack scoreboardButton = new ItemStack(Items.COMPASS);
-        scoreboardButton.setCustomName(Text.literal("スコアボードを表示").formatted(Formatting.AQUA));
-        inventory.setStack(0, scoreboardButton);
-        
-        // Slot 4: Reset button
-        ItemStack resetButton = new ItemStack(Items.BARRIER);
-        resetButton.setCustomName(Text.literal("デフォルトにリセット").formatted(Formatting.YELLOW));
-        inventory.setStack(4, resetButton);
-        
-        // Slot 8: Close button
-        ItemStack closeButton = new ItemStack(Items.REDSTONE);
-        closeButton.setCustomName(Text.literal("閉じる").formatted(Formatting.RED));
-        inventory.setStack(8, closeButton);
-        
-        // Get only enabled total stats
-        List<String> totalStats = new ArrayList<>();
-        for (String objective : TotalStatsManager.getAllTotalObjectives()) {
-            String id = objective.substring(6); // Remove "total_" prefix
-            if (TotalStatsManager.getEnabledStats().contains(id)) {
-                totalStats.add(objective);
-            }
-        }
-        totalStats.sort(String::compareTo);
-        
-        // Navigation
-        if (page > 0) {
-            ItemStack prevButton = new ItemStack(Items.ARROW);
-            prevButton.setCustomName(Text.literal("前のページ").formatted(Formatting.AQUA));
-            inventory.setStack(18, prevButton);
-        }
-        
-        if ((page + 1) * 27 < totalStats.size()) {
-            ItemStack nextButton = new ItemStack(Items.ARROW);
-            nextButton.setCustomName(Text.literal("次のページ").formatted(Formatting.AQUA));
-            inventory.setStack(26, nextButton);
-        }
-        
-        // Display statistics
-        int startIndex = page * 27;
-        int endIndex = Math.min(startIndex + 27, totalStats.size());
-        
-        for (int i = startIndex; i < endIndex; i++) {
-            String statObjective = totalStats.get(i);
-            ItemStack statItem = new ItemStack(Items.GOLDEN_APPLE);
-            String displayName = TotalStatsManager.getTotalDisplayName(statObjective);
-            statItem.setCustomName(Text.literal(displayName).formatted(Formatting.GOLD, Formatting.BOLD));
-            inventory.setStack(27 + (i - startIndex), statItem);
-        }
-        
-        // Fill empty slots
-        for (int i = 27 + (endIndex - startIndex); i < 54; i++) {
-            ItemStack glassPane = new ItemStack(Items.GRAY_STAINED_GLASS_PANE);
-            glassPane.setCustomName(Text.literal(" "));
-            inventory.setStack(i, glassPane);
-        }
-    }
-    
-    private static void setupScoreboardGUI(SimpleInventory inventory, ServerPlayerEntity player, int page) {
-        inventory.clear();
-        
-        // Slot 0: Statistics button (book icon)
-        ItemStack statsButton = new ItemStack(Items.BOOK);
-        statsButton.setCustomName(Text.literal("統計を表示").formatted(Formatting.AQUA));
-        inventory.setStack(0, statsButton);
-        
-        // Slot 4: Reset button
-        ItemStack resetButton = new ItemStack(Items.BARRIER);
-        resetButton.setCustomName(Text.literal("デフォルトにリセット").formatted(Formatting.YELLOW));
-        inventory.setStack(4, resetButton);
-        
-        // Slot 8: Close button
-        ItemStack closeButton = new ItemStack(Items.REDSTONE);
-        closeButton.setCustomName(Text.literal("閉じる").formatted(Formatting.RED));
-        inventory.setStack(8, closeButton);
-        
-        // Get objectives list (excluding total stats)
-        List<String> objectives = getObjectivesList(player, false);
-        
-        // Navigation
-        if (page > 0) {
-            ItemStack prevButton = new ItemStack(Items.ARROW);
-            prevButton.setCustomName(Text.literal("前のページ").formatted(Formatting.AQUA));
-            inventory.setStack(18, prevButton);
-        }
-        
-        if ((page + 1) * 27 < objectives.size()) {
-            ItemStack nextButton = new ItemStack(Items.ARROW);
-            nextButton.setCustomName(Text.literal("次のページ").formatted(Formatting.AQUA));
-            inventory.setStack(26, nextButton);
-        }
-        
-        // Display objectives
-        int startIndex = page * 27;
-        int endIndex = Math.min(startIndex + 27, objectives.size());
-        
-        for (int i = startIndex; i < endIndex; i++) {
-            String objective = objectives.get(i);
-            ItemStack objectiveItem = new ItemStack(Items.PAPER);
-            objectiveItem.setCustomName(Text.literal(objective).formatted(Formatting.WHITE));
-            inventory.setStack(27 + (i - startIndex), objectiveItem);
+    /**
+     * 検索結果を開く
+     * @param query 検索語（空の場合はスコアボード一覧）
+     */
+    public static void openSearch(ServerPlayerEntity player, String query) {
+        if (query == null || query.isBlank()) {
+            openFor(player, GUIPage.SCOREBOARD);
+            return;
         }
+        SimpleInventory inventory = new SimpleInventory(GUI_SIZE);
+        GuiPageCache.PageModel model = GuiPageCache.getSearchPage(player.getServer(), query.trim(), 0);
+        model.applyTo(inventory);
         
-        // Fill empty slots
-        for (int i = 27 + (endIndex - startIndex); i < 54; i++) {
-            ItemStack glassPane = new ItemStack(Items.GRAY_STAINED_GLASS_PANE);
-            glassPane.setCustomName(Text.literal(" "));
-            inventory.setStack(i, glassPane);
+        player.openHandledScreen(new net.minecraft.screen.SimpleNamedScreenHandlerFactory(
+                (syncId, playerInventory, playerEntity) -> new ServerScoreboardScreenHandler(syncId, playerInventory, inventory, player, GUIPage.SCOREBOARD, model),
+                Text.literal("スコアボード検索")
+        ));
+        if (model.items.isEmpty()) {
+            player.sendMessage(Text.literal("「" + query.trim() + "」に一致するスコアボードはありません").formatted(Formatting.YELLOW));
         }
     }
     
-    private static List<String> getObjectivesList(ServerPlayerEntity player, boolean includeTotalStats) {
-        List<String> list = new ArrayList<>();
-        
-        player.getServer().getScoreboard().getObjectives().forEach(objective -> {
-            String name = objective.getName();
-            if (includeTotalStats || !TotalStatsManager.isTotalObjective(name)) {
-                list.add(name);
-            }
-        });
-        
-        return list;
+    private static GuiPageCache.PageType pageTypeOf(GUIPage page) {
+        return page == GUIPage.STATISTICS ? GuiPageCache.PageType.STATISTICS : GuiPageCache.PageType.SCOREBOARD;
     }
     
     public static class ServerScoreboardScreenHandler extends GenericContainerScreenHandler {
@@ -176,13 +66,16 @@ public class ServerScoreboardGUIv2 {
         private final ServerPlayerEntity player;
         private final SimpleInventory inventory;
         private final GUIPage currentPage;
-        private int pageNumber = 0;
+        // 表示中のページ（クリックされた項目はこのページの内容から解決する）
+        private GuiPageCache.PageModel model;
         
-        public ServerScoreboardScreenHandler(int syncId, PlayerInventory playerInventory, Inventory inventory, ServerPlayerEntity player, GUIPage currentPage) {
+        public ServerScoreboardScreenHandler(int syncId, PlayerInventory playerInventory, Inventory inventory, ServerPlayerEntity player,
+                                             GUIPage currentPage, GuiPageCache.PageModel model) {
             super(ScreenHandlerType.GENERIC_9X6, syncId, playerInventory, inventory, 6);
             this.player = player;
             this.inventory = (SimpleInventory) inventory;
             this.currentPage = currentPage;
+            this.model = model;
         }
         
         @Override
@@ -215,7 +108,7 @@ public class ServerScoreboardGUIv2 {
             switch (slotIndex) {
                 case 0:
                     // Switch between statistics and scoreboard
-                    if (currentPage == GUIPage.STATISTICS) {
+                    if (currentPage == GUIPage.STATISTICS || model.type == GuiPageCache.PageType.SEARCH) {
                         player.closeHandledScreen();
                         ServerScoreboardGUIv2.openFor(player, GUIPage.SCOREBOARD);
                     } else {
@@ -224,6 +117,12 @@ public class ServerScoreboardGUIv2 {
                     }
                     break;
                     
+                case 2:
+                    // Search (金床で検索語を入力)
+                    player.closeHandledScreen();
+                    ObjectiveSearchGUI.openFor(player, model.query);
+                    break;
+                    
                 case 4:
                     // Reset button
                     resetToDefault();
@@ -236,20 +135,15 @@ public class ServerScoreboardGUIv2 {
                     
                 case 18:
                     // Previous page
-                    if (pageNumber > 0) {
-                        pageNumber--;
-                        refreshGUI();
+                    if (model.hasPrevious) {
+                        showPage(model.page - 1);
                     }
                     break;
                     
                 case 26:
                     // Next page
-                    List<String> items = currentPage == GUIPage.STATISTICS ? 
-                        getAllTotalStats() :
-                        getObjectivesList(player, false);
-                    if ((pageNumber + 1) * 27 < items.size()) {
-                        pageNumber++;
-                        refreshGUI();
+                    if (model.hasNext) {
+                        showPage(model.page + 1);
                     }
                     break;
                     
@@ -262,33 +156,10 @@ public class ServerScoreboardGUIv2 {
             }
         }
         
-        private List<String> getAllTotalStats() {
-            List<String> totalStats = new ArrayList<>();
-            for (String objective : TotalStatsManager.getAllTotalObjectives()) {
-                String id = objective.substring(6); // Remove "total_" prefix
-                if (TotalStatsManager.getEnabledStats().contains(id)) {
-                    totalStats.add(objective);
-                }
-            }
-            totalStats.sort(String::compareTo);
-            return totalStats;
-        }
-        
         private void handleItemSelection(int slotIndex) {
-            int itemIndex = pageNumber * 27 + (slotIndex - 27);
-            
-            if (currentPage == GUIPage.STATISTICS) {
-                List<String> totalStats = getAllTotalStats();
-                if (itemIndex < totalStats.size()) {
-                    String selectedStat = totalStats.get(itemIndex);
-                    selectObjective(selectedStat);
-                }
-            } else {
-                List<String> objectives = getObjectivesList(player, false);
-                if (itemIndex < objectives.size()) {
-                    String selectedObjective = objectives.get(itemIndex);
-                    selectObjective(selectedObjective);
-                }
+            String selected = model.getItem(slotIndex);
+            if (selected != null) {
+                selectObjective(selected);
             }
         }
         
@@ -314,12 +185,11 @@ public class ServerScoreboardGUIv2 {
             }
         }
         
-        private void refreshGUI() {
-            if (currentPage == GUIPage.STATISTICS) {
-                setupStatisticsGUI(inventory, player, pageNumber);
-            } else {
-                setupScoreboardGUI(inventory, player, pageNumber);
-            }
+        private void showPage(int page) {
+            model = model.type == GuiPageCache.PageType.SEARCH
+                    ? GuiPageCache.getSearchPage(player.getServer(), model.query, page)
+                    : GuiPageCache.getPage(player.getServer(), pageTypeOf(currentPage), page);
+            model.applyTo(inventory);
         }
     }
 }
\ No newline at end of file
@@ -4,77 +4,296 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.text.MutableText;
 import net.minecraft.text.Text;
 import net.minecraft.util.Formatting;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * MODのロガー
+ * ログはリングバッファに積み、バックグラウンドスレッドが書き出す（サーバースレッドでI/Oを待たない）
+ * バッファが満杯の場合は破棄して件数を記録する
+ */
 public class ServerScoreboardLogger {
     private static final Logger LOGGER = LoggerFactory.getLogger(ServerOnlyScoreboardMod.MOD_ID);
     private static MinecraftServer server;
-    
+
+    private enum Level { INFO, WARN, ERROR, DEBUG }
+
+    private static final class LogEvent {
+        final Level level;
+        final String message;
+        final Throwable throwable;
+
+        LogEvent(Level level, String message, Throwable throwable) {
+            this.level = level;
+            this.message = message;
+            this.throwable = throwable;
+        }
+    }
+
+    private static final long WRITER_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final int BROADCAST_BUFFER_CAPACITY = 256;
+
+    private static final LogRingBuffer<LogEvent> buffer = new LogRingBuffer<>(ServerScoreboardConfig.LOG_BUFFER_CAPACITY);
+    private static final AtomicLong droppedEvents = new AtomicLong();
+    private static final AtomicBoolean writerStarted = new AtomicBoolean(false);
+    private static volatile boolean shutdown = false;
+    private static Thread writerThread;
+
+    // OPへ送信待ちのデバッグメッセージ（サーバースレッドでまとめて送信）
+    private static final LogRingBuffer<String> pendingBroadcasts = new LogRingBuffer<>(BROADCAST_BUFFER_CAPACITY);
+    private static final AtomicLong droppedBroadcasts = new AtomicLong();
+    private static int lastBroadcastTick = 0;
+
     public static void setServer(MinecraftServer minecraftServer) {
         server = minecraftServer;
     }
-    
+
+    /**
+     * デバッグログが出力されるか（呼び出し側で文字列を組み立てる前に確認する）
+     */
+    public static boolean isDebugEnabled() {
+        return ServerScoreboardConfig.DEBUG_MODE_ENABLED || LOGGER.isDebugEnabled();
+    }
+
     public static void info(String message) {
-        LOGGER.info(message);
+        enqueue(Level.INFO, message, null);
     }
-    
+
     public static void warn(String message) {
-        LOGGER.warn(message);
+        enqueue(Level.WARN, message, null);
     }
-    
+
     public static void error(String message) {
-        LOGGER.error(message);
+        enqueue(Level.ERROR, message, null);
     }
-    
+
     public static void error(String message, Throwable throwable) {
-        LOGGER.error(message, throwable);
+        enqueue(Level.ERROR, message, throwable);
     }
-    
+
     public static void debug(String message) {
-        LOGGER.debug(message);
-        
-        // デバッグモードが有効な場合、サーバーメッセージとして送信
+        if (!isDebugEnabled()) {
+            return;
+        }
+        if (LOGGER.isDebugEnabled()) {
+            enqueue(Level.DEBUG, message, null);
+        }
+
+        // デバッグモードが有効な場合、サーバーメッセージとして送信（まとめて送る）
         if (ServerScoreboardConfig.DEBUG_MODE_ENABLED && server != null) {
-            broadcastDebugMessage(message);
+            if (!pendingBroadcasts.offer(message)) {
+                droppedBroadcasts.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * デバッグログ（無効時はメッセージを作成しない）
+     * @param messageSupplier メッセージを作成する関数
+     */
+    public static void debug(Supplier<String> messageSupplier) {
+        if (isDebugEnabled()) {
+            debug(messageSupplier.get());
         }
     }
-    
+
     public static void debugScore(String action, String objectiveName, String playerName, int value) {
         if (!ServerScoreboardConfig.DEBUG_MODE_ENABLED) {
             return;
         }
-        
+
         String message = String.format("[MySB Debug] %s: %s - %s = %d", action, objectiveName, playerName, value);
         debug(message);
     }
-    
+
+    /**
+     * スコア変更を記録（チャットには送信せず、/mysb debug summary で集計して確認する）
+     */
     public static void debugScoreChange(String action, String objectiveName, String playerName, int oldValue, int newValue) {
         if (!ServerScoreboardConfig.DEBUG_MODE_ENABLED) {
             return;
         }
-        
-        String message = String.format("[MySB Debug] %s: %s - %s: %d → %d (変化: %+d)", 
-            action, objectiveName, playerName, oldValue, newValue, (newValue - oldValue));
-        debug(message);
+
+        if (server != null) {
+            ScoreChangeRecorder.record(objectiveName, playerName, oldValue, newValue, server.getTicks());
+        }
+        if (LOGGER.isDebugEnabled()) {
+            enqueue(Level.DEBUG, String.format("[MySB Debug] %s: %s - %s: %d → %d (変化: %+d)",
+                action, objectiveName, playerName, oldValue, newValue, (newValue - oldValue)), null);
+        }
+    }
+
+    /**
+     * バッファが満杯で破棄したログの件数
+     */
+    public static long getDroppedCount() {
+        return droppedEvents.get();
+    }
+
+    public static int getPendingCount() {
+        return buffer.size();
+    }
+
+    private static void enqueue(Level level, String message, Throwable throwable) {
+        if (shutdown) {
+            // 停止後は直接書き出す
+            write(new LogEvent(level, message, throwable));
+            return;
+        }
+        ensureWriter();
+
+        LogEvent event = new LogEvent(level, message, throwable);
+        if (!buffer.offer(event)) {
+            droppedEvents.incrementAndGet();
+            if (level == Level.ERROR) {
+                // エラーは破棄せずに書き出す
+                write(event);
+            }
+        }
+    }
+
+    private static void ensureWriter() {
+        if (writerStarted.get() || !writerStarted.compareAndSet(false, true)) {
+            return;
+        }
+        Thread thread = new Thread(ServerScoreboardLogger::runWriter, "MySB-Logger");
+        thread.setDaemon(true);
+        writerThread = thread;
+        thread.start();
+    }
+
+    private static void runWriter() {
+        long reportedDrops = 0;
+        while (!shutdown) {
+            if (drain() == 0) {
+                LockSupport.parkNanos(WRITER_IDLE_NANOS);
+            }
+
+            long drops = droppedEvents.get();
+            if (drops != reportedDrops) {
+                LOGGER.warn("Log buffer full: dropped " + (drops - reportedDrops) + " log events (total: " + drops + ")");
+                reportedDrops = drops;
+            }
+        }
+    }
+
+    private static int drain() {
+        int count = 0;
+        LogEvent event;
+        while ((event = buffer.poll()) != null) {
+            write(event);
+            count++;
+        }
+        return count;
+    }
+
+    private static void write(LogEvent event) {
+        switch (event.level) {
+            case INFO:
+                LOGGER.info(event.message);
+                break;
+            case WARN:
+                LOGGER.warn(event.message);
+                break;
+            case ERROR:
+                if (event.throwable != null) {
+                    LOGGER.error(event.message, event.throwable);
+                } else {
+                    LOGGER.error(event.message);
+                }
+                break;
+            case DEBUG:
+                LOGGER.debug(event.message);
+                break;
+        }
+    }
+
+    /**
+     * 書き出しスレッドを停止し、残りのログを書き出す（サーバー停止時）
+     */
+    public static void shutdown() {
+        shutdown = true;
+        Thread thread = writerThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        drain();
+
+        long drops = droppedEvents.get();
+        if (drops > 0) {
+            LOGGER.warn("Dropped " + drops + " log events while the log buffer was full");
+        }
     }
-    
-    private static void broadcastDebugMessage(String message) {
-        if (server == null) return;
-        
-        Text debugText = Text.literal("[MySB Debug] ").formatted(Formatting.GRAY)
-            .append(Text.literal(message).formatted(Formatting.AQUA));
-        
+
+    /**
+     * 溜まったデバッグメッセージをOPにまとめて送信（サーバーティックで呼び出し）
+     * 同じメッセージは件数付きで1行にまとめ、1回の送信行数を制限する
+     */
+    public static void flushDebugBroadcasts(MinecraftServer minecraftServer) {
+        if (pendingBroadcasts.isEmpty() && droppedBroadcasts.get() == 0) {
+            return;
+        }
+        int tick = minecraftServer.getTicks();
+        if (tick - lastBroadcastTick < ServerScoreboardConfig.DEBUG_BROADCAST_INTERVAL_TICKS) {
+            return;
+        }
+        lastBroadcastTick = tick;
+
+        Map<String, Integer> messages = new LinkedHashMap<>();
+        String message;
+        while ((message = pendingBroadcasts.poll()) != null) {
+            messages.merge(message, 1, Integer::sum);
+        }
+        long dropped = droppedBroadcasts.getAndSet(0);
+        if (!ServerScoreboardConfig.DEBUG_MODE_ENABLED) {
+            return;
+        }
+
+        int sent = 0;
+        int omitted = 0;
+        for (Map.Entry<String, Integer> entry : messages.entrySet()) {
+            if (sent >= ServerScoreboardConfig.DEBUG_BROADCAST_MAX_LINES) {
+                omitted += entry.getValue();
+                continue;
+            }
+            String line = entry.getValue() > 1 ? entry.getKey() + " (x" + entry.getValue() + ")" : entry.getKey();
+            broadcastDebugMessage(minecraftServer, Text.literal(line).formatted(Formatting.AQUA));
+            sent++;
+        }
+
+        if (omitted > 0 || dropped > 0) {
+            broadcastDebugMessage(minecraftServer, Text.literal("他 " + (omitted + dropped) + " 件のメッセージを省略しました（詳細はサーバーログ）")
+                .formatted(Formatting.DARK_GRAY));
+        }
+    }
+
+    private static void broadcastDebugMessage(MinecraftServer minecraftServer, MutableText message) {
+        Text debugText = Text.literal("[MySB Debug] ").formatted(Formatting.GRAY).append(message);
+
         if (ServerScoreboardConfig.DEBUG_BROADCAST_TO_OPS) {
             // OP権限者にのみ送信
-            for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
+            for (ServerPlayerEntity player : minecraftServer.getPlayerManager().getPlayerList()) {
                 if (player.hasPermissionLevel(ServerScoreboardConfig.DEBUG_LOG_OP_LEVEL)) {
                     player.sendMessage(debugText, false);
                 }
             }
         } else {
             // 全員に送信
-            server.getPlayerManager().broadcast(debugText, false);
+            minecraftServer.getPlayerManager().broadcast(debugText, false);
         }
     }
 }
\ No newline at end of file
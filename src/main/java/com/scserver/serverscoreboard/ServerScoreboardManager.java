@@ -18,6 +18,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
@@ -263,8 +264,8 @@ public class ServerScoreboardManager {
             
             ServerPlayerEntity player = server.getPlayerManager().getPlayer(playerId);
             if (player != null) {
-                // カスタムスコアボードを再送信
-                CustomScoreboardPacketSender.sendCustomScoreboard(player, data);
+                // 変更したエントリのみ送信
+                CustomScoreboardPacketSender.sendCustomScoreChange(player, data, scoreName, score);
             }
         }
     }
@@ -287,8 +288,7 @@ public class ServerScoreboardManager {
         }
         
         // 通常のスコアボード表示（パケットベース）
-        Scoreboard scoreboard = server.getScoreboard();
-        ScoreboardObjective objective = scoreboard.getObjective(objectiveName);
+        ScoreboardObjective objective = resolveObjective(objectiveName);
         
         if (objective != null) {
             // 前のオブジェクティブの監視を停止
@@ -328,12 +328,12 @@ public class ServerScoreboardManager {
                 ScoreboardObjective currentObjective = server.getScoreboard().getObjectiveForSlot(1);
                 if (currentObjective != null && !currentObjective.equals(objective)) {
                     // 一時的に表示をクリア
-                    player.networkHandler.sendPacket(new net.minecraft.network.packet.s2c.play.ScoreboardDisplayS2CPacket(1, null));
+                    ModMetrics.sendPacket(player, new net.minecraft.network.packet.s2c.play.ScoreboardDisplayS2CPacket(1, null));
                 }
                 
                 // オブジェクティブを削除して再作成（クライアントのキャッシュをクリア）
-                player.networkHandler.sendPacket(new net.minecraft.network.packet.s2c.play.ScoreboardObjectiveUpdateS2CPacket(objective, 1)); // 削除
-                player.networkHandler.sendPacket(new net.minecraft.network.packet.s2c.play.ScoreboardObjectiveUpdateS2CPacket(objective, 0)); // 作成
+                ModMetrics.sendPacket(player, new net.minecraft.network.packet.s2c.play.ScoreboardObjectiveUpdateS2CPacket(objective, 1)); // 削除
+                ModMetrics.sendPacket(player, new net.minecraft.network.packet.s2c.play.ScoreboardObjectiveUpdateS2CPacket(objective, 0)); // 作成
                 
                 // 初回は全スコアを送信（キャッシュをリセット）
                 Map<String, Map<String, Integer>> playerCache = playerScoreboardCache.computeIfAbsent(playerId, k -> new ConcurrentHashMap<>());
@@ -343,13 +343,13 @@ public class ServerScoreboardManager {
                 sendDifferentialScoreboardUpdate(player, objective);
                 
                 // スコアボードをサイドバーに表示
-                player.networkHandler.sendPacket(new net.minecraft.network.packet.s2c.play.ScoreboardDisplayS2CPacket(1, objective));
+                ModMetrics.sendPacket(player, new net.minecraft.network.packet.s2c.play.ScoreboardDisplayS2CPacket(1, objective));
                 ServerScoreboardLogger.info("Sent display packet for objective " + objective.getName() + " to player " + player.getName().getString());
             } else {
                 // パケットのみでスコアボードをクリア
                 UUID playerId = player.getUuid();
                 playerActiveObjectives.remove(playerId); // アクティブオブジェクティブをクリア
-                player.networkHandler.sendPacket(new net.minecraft.network.packet.s2c.play.ScoreboardDisplayS2CPacket(1, null));
+                ModMetrics.sendPacket(player, new net.minecraft.network.packet.s2c.play.ScoreboardDisplayS2CPacket(1, null));
                 ServerScoreboardLogger.info("Sent clear display packet to player " + player.getName().getString());
             }
         } catch (Exception e) {
@@ -380,33 +380,46 @@ public class ServerScoreboardManager {
     public static void onPlayerJoin(ServerPlayerEntity player) {
         UUID playerId = player.getUuid();
         ServerScoreboardLogger.info("Player " + player.getName().getString() + " joined, initializing scoreboard");
+        ModMetrics.registerPlayer(playerId, player.getName().getString());
         
         PlayerScoreboardData data = playerData.get(playerId);
         CustomScoreboardData customData = customScoreboardData.get(playerId);
         
         // プレイヤー個別のスコアボード初期化
+        // クライアントの初期化を待つため、数tick後に復元する（サーバースレッドを待機させない）
+        if ((customData != null && customData.isEnabled())
+                || (data != null && data.isEnabled() && !data.getDisplayObjective().isEmpty())) {
+            JoinRestoreQueue.enqueue(server, playerId);
+        } else {
+            // 設定がない場合は、サーバーのデフォルトをそのまま使用
+            ServerScoreboardLogger.debug("No saved scoreboard settings for " + player.getName().getString() + ", using server default");
+        }
+    }
+    
+    /**
+     * ログイン時のスコアボード復元（JoinRestoreQueueから呼ばれる）
+     * カスタムスコアボードがある場合はそれを、ない場合は保存されている表示設定を、復元時点の内容で1回だけ送信する
+     */
+    public static void restorePlayerScoreboard(ServerPlayerEntity player) {
+        UUID playerId = player.getUuid();
         try {
+            PlayerScoreboardData data = playerData.get(playerId);
+            CustomScoreboardData customData = customScoreboardData.get(playerId);
+            
+            // 復元で全体を送信するため、変更フラグによる再送はしない
+            playersToUpdate.remove(playerId);
+            if (data != null) {
+                data.setDirty(false);
+            }
+            
             // カスタムスコアボードがある場合は優先的に表示
             if (customData != null && customData.isEnabled()) {
-                server.execute(() -> {
-                    CustomScoreboardPacketSender.sendCustomScoreboard(player, customData);
-                    ServerScoreboardLogger.debug("Applied custom scoreboard for " + player.getName().getString());
-                });
+                CustomScoreboardPacketSender.sendCustomScoreboard(player, customData);
+                ServerScoreboardLogger.debug("Applied custom scoreboard for " + player.getName().getString());
             } else if (data != null && data.isEnabled() && !data.getDisplayObjective().isEmpty()) {
                 // 保存されている設定を適用
-                // 少し遅延を入れてクライアントの初期化を待つ
-                server.execute(() -> {
-                    try {
-                        Thread.sleep(100); // 100ms待機
-                    } catch (InterruptedException e) {
-                        // 無視
-                    }
-                    updatePlayerScoreboard(player, data);
-                    ServerScoreboardLogger.debug("Applied saved scoreboard settings for " + player.getName().getString());
-                });
-            } else {
-                // 設定がない場合は、サーバーのデフォルトをそのまま使用
-                ServerScoreboardLogger.debug("No saved scoreboard settings for " + player.getName().getString() + ", using server default");
+                updatePlayerScoreboard(player, data);
+                ServerScoreboardLogger.debug("Applied saved scoreboard settings for " + player.getName().getString());
             }
         } catch (Exception e) {
             ServerScoreboardLogger.error("Failed to initialize scoreboard for player " + player.getName().getString(), e);
@@ -419,6 +432,9 @@ public class ServerScoreboardManager {
         String playerName = player.getName().getString();
         ServerScoreboardLogger.info("Player " + playerName + " disconnected, cleaning up scoreboard");
         
+        // 未実行のログイン時の復元を取り消す
+        JoinRestoreQueue.cancel(playerId);
+        
         // プレイヤーの統計をキャッシュに保存
         if (!TotalStatsManager.isPlayerExcluded(playerName)) {
             Map<String, String> allStats = TotalStatsManager.getAllAvailableStats();
@@ -440,13 +456,34 @@ public class ServerScoreboardManager {
         // アクティブオブジェクティブ情報をクリア
         playerActiveObjectives.remove(playerId);
         
+        // カスタムスコアボードの送信状態をクリア
+        CustomScoreboardPacketSender.onPlayerDisconnect(playerId);
+        
         // レート制限情報をクリア
         RateLimiter.clearPlayer(playerId);
+        ModMetrics.forgetPlayer(playerId);
+    }
+    
+    public static int getScoreboardCachePlayerCount() {
+        return playerScoreboardCache.size();
+    }
+    
+    public static int getScoreboardCacheEntryCount() {
+        int count = 0;
+        for (Map<String, Map<String, Integer>> playerCache : playerScoreboardCache.values()) {
+            for (Map<String, Integer> objectiveCache : playerCache.values()) {
+                count += objectiveCache.size();
+            }
+        }
+        return count;
     }
 
     public static void updateClientScoreboards(MinecraftServer server) {
         tickCounter++;
         
+        // ログイン時の復元（遅延・1tickあたりの人数の上限付き）
+        JoinRestoreQueue.tick(server);
+        
         // 全プレイヤーのクライアントスコアボードを定期更新
         // パフォーマンスのため、必要なときだけ更新
         for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
@@ -491,6 +528,18 @@ public class ServerScoreboardManager {
         // 特に統計スコアボードを表示しているプレイヤーに対して更新を送信
         updateTotalStatsForWatchers();
         
+        // 監視中のオブジェクティブの変更をまとめて検出（オブジェクティブごとに1回）
+        Set<String> displayedObjectives = new HashSet<>(playerActiveObjectives.values());
+        Set<String> trackedObjectives = CustomScoreboardPacketSender.getTrackedObjectives();
+        trackedObjectives.addAll(displayedObjectives);
+        Map<String, List<ObjectiveChangeStream.Change>> changes = ObjectiveChangeStream.poll(server, trackedObjectives);
+        
+        // 変更されたエントリのみサイドバーの順位インデックスに反映
+        SidebarWindow.updateIndexes(server, displayedObjectives, changes);
+        
+        // 変換元のオブジェクティブの変更を変換済みスコアボードに反映
+        CustomScoreboardPacketSender.pollTransformedViews(server, changes);
+        
         // アクティブなオブジェクティブを表示しているプレイヤーのスコアボードを更新
         for (Map.Entry<UUID, String> entry : playerActiveObjectives.entrySet()) {
             UUID playerId = entry.getKey();
@@ -498,7 +547,7 @@ public class ServerScoreboardManager {
             
             ServerPlayerEntity player = server.getPlayerManager().getPlayer(playerId);
             if (player != null) {
-                ScoreboardObjective objective = server.getScoreboard().getObjective(objectiveName);
+                ScoreboardObjective objective = resolveObjective(objectiveName);
                 if (objective != null) {
                     sendScoreboardUpdatePackets(player, objective);
                 }
@@ -506,6 +555,29 @@ public class ServerScoreboardManager {
         }
     }
     
+    /**
+     * 表示用のオブジェクティブを取得
+     * 仮想モードの統計オブジェクティブはサーバースコアボードに存在しないため、パケット専用のものを返す
+     */
+    public static ScoreboardObjective resolveObjective(String objectiveName) {
+        ScoreboardObjective objective = server.getScoreboard().getObjective(objectiveName);
+        if (objective == null) {
+            objective = TotalStatsManager.getVirtualObjective(objectiveName);
+        }
+        return objective;
+    }
+    
+    // 統計スコアボードを表示中のプレイヤーに全体を再送信（保存先の切り替え時など）
+    public static void refreshTotalStatViewers() {
+        for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
+            PlayerScoreboardData data = playerData.get(player.getUuid());
+            if (data != null && data.isEnabled() && TotalStatsManager.isTotalObjective(data.getDisplayObjective())) {
+                SidebarWindow.clearSnapshot(data.getDisplayObjective());
+                updatePlayerScoreboard(player, data);
+            }
+        }
+    }
+    
     private static void addObjectiveWatcher(UUID playerId, String objectiveName) {
         objectiveWatchers.computeIfAbsent(objectiveName, k -> new HashSet<>()).add(playerId);
     }
@@ -557,6 +629,9 @@ public class ServerScoreboardManager {
         
         // 変換データもクリア
         transformData.remove(playerId);
+        if (player != null) {
+            CustomScoreboardPacketSender.removeTransformedView(player);
+        }
     }
     
     private static void forceServerScoreboardSync(ServerPlayerEntity player) {
@@ -567,11 +642,11 @@ public class ServerScoreboardManager {
         ScoreboardObjective sidebarObjective = scoreboard.getObjectiveForSlot(1);
         if (sidebarObjective != null) {
             // オブジェクティブを再送信
-            player.networkHandler.sendPacket(new net.minecraft.network.packet.s2c.play.ScoreboardObjectiveUpdateS2CPacket(sidebarObjective, 0));
+            ModMetrics.sendPacket(player, new net.minecraft.network.packet.s2c.play.ScoreboardObjectiveUpdateS2CPacket(sidebarObjective, 0));
             
             // 全スコアを再送信
             scoreboard.getAllPlayerScores(sidebarObjective).forEach(score -> {
-                player.networkHandler.sendPacket(new net.minecraft.network.packet.s2c.play.ScoreboardPlayerUpdateS2CPacket(
+                ModMetrics.sendPacket(player, new net.minecraft.network.packet.s2c.play.ScoreboardPlayerUpdateS2CPacket(
                     net.minecraft.scoreboard.ServerScoreboard.UpdateMode.CHANGE,
                     sidebarObjective.getName(),
                     score.getPlayerName(),
@@ -580,7 +655,7 @@ public class ServerScoreboardManager {
             });
             
             // サイドバーに表示
-            player.networkHandler.sendPacket(new net.minecraft.network.packet.s2c.play.ScoreboardDisplayS2CPacket(1, sidebarObjective));
+            ModMetrics.sendPacket(player, new net.minecraft.network.packet.s2c.play.ScoreboardDisplayS2CPacket(1, sidebarObjective));
         }
     }
     
@@ -606,8 +681,8 @@ public class ServerScoreboardManager {
             
             ServerPlayerEntity player = server.getPlayerManager().getPlayer(playerId);
             if (player != null) {
-                // カスタムスコアボードを再送信
-                CustomScoreboardPacketSender.sendCustomScoreboard(player, data);
+                // 削除したエントリのみ送信
+                CustomScoreboardPacketSender.sendCustomScoreChange(player, data, scoreName, null);
             }
         }
     }
@@ -676,7 +751,7 @@ public class ServerScoreboardManager {
         if (data != null && data.isEnabled()) {
             ServerPlayerEntity player = server.getPlayerManager().getPlayer(playerId);
             if (player != null) {
-                CustomScoreboardPacketSender.sendTransformedScoreboard(player, objectiveName, data);
+                CustomScoreboardPacketSender.refreshTransformedScoreboard(player, objectiveName, data);
             }
         }
     }
@@ -685,21 +760,23 @@ public class ServerScoreboardManager {
     public static void checkAndApplyAutoTransforms(ServerPlayerEntity player) {
         if (!ScoreboardAutoTransform.isAutoApplyEnabled()) return; 
         
-        // サーバーのスコアボードから現在表示中のオブジェクティブを取得
-        server.getScoreboard().getObjectives().forEach(objective -> {
+        // ルールは共有のコンパイル済みルールを参照するため、プレイヤーごとにはフラグのみ設定する
+        ScoreboardTransformData data = null;
+        for (ScoreboardObjective objective : server.getScoreboard().getObjectives()) {
             String objectiveName = objective.getName();
-            if (ScoreboardAutoTransform.shouldAutoTransform(objectiveName)) {
-                ScoreboardTransformData autoTransformData = ScoreboardAutoTransform.createTransformData(
-                    player.getUuid(), objectiveName);
-                
-                if (autoTransformData != null) {
-                    transformData.put(player.getUuid(), autoTransformData);
-                    CustomScoreboardPacketSender.sendTransformedScoreboard(player, objectiveName, autoTransformData);
-                    ServerScoreboardLogger.debug("Applied auto-transform for objective " + objectiveName + 
-                        " to player " + player.getName().getString());
-                }
+            if (!ScoreboardAutoTransform.shouldAutoTransform(objectiveName)) continue;
+            
+            if (data == null) {
+                data = transformData.computeIfAbsent(player.getUuid(), ScoreboardTransformData::new);
+                data.setAutoRulesApplied(true);
+                data.setEnabled(true);
             }
-        });
+            CustomScoreboardPacketSender.sendTransformedScoreboard(player, objectiveName, data);
+            if (ServerScoreboardLogger.isDebugEnabled()) {
+                ServerScoreboardLogger.debug("Applied auto-transform for objective " + objectiveName + 
+                    " to player " + player.getName().getString());
+            }
+        }
     }
     
     public static void reloadAutoTransforms() {
@@ -845,8 +922,10 @@ public class ServerScoreboardManager {
                 // 差分スコアデータを送信
                 sendDifferentialScoreboardUpdate(player, objective);
             } else {
-                ServerScoreboardLogger.debug("Skipping update for player " + player.getName().getString() + 
-                    " - not displaying objective " + objective.getName());
+                if (ServerScoreboardLogger.isDebugEnabled()) {
+                    ServerScoreboardLogger.debug("Skipping update for player " + player.getName().getString() + 
+                        " - not displaying objective " + objective.getName());
+                }
             }
         }
     }
@@ -866,8 +945,10 @@ public class ServerScoreboardManager {
         String playerActiveObjective = playerActiveObjectives.get(playerId);
         if (playerActiveObjective == null || !playerActiveObjective.equals(objectiveName)) {
             // このプレイヤーは別のオブジェクティブを表示中、または何も表示していない
-            ServerScoreboardLogger.debug("Skipping update for player " + player.getName().getString() + 
-                " - not displaying objective " + objectiveName + " (displaying: " + playerActiveObjective + ")");
+            if (ServerScoreboardLogger.isDebugEnabled()) {
+                ServerScoreboardLogger.debug("Skipping update for player " + player.getName().getString() + 
+                    " - not displaying objective " + objectiveName + " (displaying: " + playerActiveObjective + ")");
+            }
             return;
         }
         
@@ -875,23 +956,25 @@ public class ServerScoreboardManager {
         Map<String, Map<String, Integer>> playerCache = playerScoreboardCache.computeIfAbsent(playerId, k -> new ConcurrentHashMap<>());
         Map<String, Integer> objectiveCache = playerCache.computeIfAbsent(objectiveName, k -> new ConcurrentHashMap<>());
         
-        // 現在のスコアデータを取得
-        var currentScores = server.getScoreboard().getAllPlayerScores(objective);
-        Set<String> currentPlayerNames = new HashSet<>();
+        // 現在のスコアデータを取得（同一tick内は閲覧者間で共有）
+        SidebarWindow.Snapshot snapshot = SidebarWindow.snapshot(server, objective);
+        // サイドバーに表示される範囲のみを送信対象にする
+        SidebarWindow.Selection selection = SidebarWindow.selectVisible(snapshot, player.getName().getString(), objectiveCache.keySet());
+        Map<String, Integer> visibleScores = selection.visible;
         int updateCount = 0;
         int removeCount = 0;
+        int unchangedCount = 0;
         
         // 更新または新規追加されたスコアのみを送信
-        for (var score : currentScores) {
-            String playerName = score.getPlayerName();
-            int currentScore = score.getScore();
-            currentPlayerNames.add(playerName);
+        for (Map.Entry<String, Integer> score : visibleScores.entrySet()) {
+            String playerName = score.getKey();
+            int currentScore = score.getValue();
             
             Integer cachedScore = objectiveCache.get(playerName);
             if (cachedScore == null || !cachedScore.equals(currentScore)) {
                 // 変更があった場合のみパケットを送信（レート制限チェック付き）
                 if (RateLimiter.canSendPacket(player.getUuid())) {
-                    player.networkHandler.sendPacket(new net.minecraft.network.packet.s2c.play.ScoreboardPlayerUpdateS2CPacket(
+                    ModMetrics.sendPacket(player, new net.minecraft.network.packet.s2c.play.ScoreboardPlayerUpdateS2CPacket(
                         net.minecraft.scoreboard.ServerScoreboard.UpdateMode.CHANGE,
                         objectiveName,
                         playerName,
@@ -899,40 +982,51 @@ public class ServerScoreboardManager {
                     ));
                     objectiveCache.put(playerName, currentScore);
                     updateCount++;
-                    ServerScoreboardLogger.debug("Updated score: " + playerName + " = " + currentScore + " (was: " + cachedScore + ")");
+                    if (ServerScoreboardLogger.isDebugEnabled()) {
+                        ServerScoreboardLogger.debug("Updated score: " + playerName + " = " + currentScore + " (was: " + cachedScore + ")");
+                    }
                 } else {
-                    ServerScoreboardLogger.debug("Skipped update due to rate limit: " + playerName);
+                    if (ServerScoreboardLogger.isDebugEnabled()) {
+                        ServerScoreboardLogger.debug("Skipped update due to rate limit: " + playerName);
+                    }
                 }
+            } else {
+                unchangedCount++;
             }
         }
+        // 変化のないエントリは送信しない
+        ModMetrics.PACKETS_COALESCED.add(unchangedCount);
         
-        // 削除されたプレイヤーのスコアを削除
-        Set<String> cachedPlayerNames = new HashSet<>(objectiveCache.keySet());
-        for (String cachedPlayerName : cachedPlayerNames) {
-            if (!currentPlayerNames.contains(cachedPlayerName)) {
-                // プレイヤーが削除された場合（レート制限チェック付き）
-                if (RateLimiter.canSendPacket(player.getUuid())) {
-                    player.networkHandler.sendPacket(new net.minecraft.network.packet.s2c.play.ScoreboardPlayerUpdateS2CPacket(
-                        net.minecraft.scoreboard.ServerScoreboard.UpdateMode.REMOVE,
-                        objectiveName,
-                        cachedPlayerName,
-                        0
-                    ));
-                    objectiveCache.remove(cachedPlayerName);
-                    removeCount++;
+        // 削除されたスコア・表示範囲から外れたスコアを削除
+        for (String cachedPlayerName : selection.removed) {
+            // プレイヤーが削除された場合（レート制限チェック付き）
+            if (RateLimiter.canSendPacket(player.getUuid())) {
+                ModMetrics.sendPacket(player, new net.minecraft.network.packet.s2c.play.ScoreboardPlayerUpdateS2CPacket(
+                    net.minecraft.scoreboard.ServerScoreboard.UpdateMode.REMOVE,
+                    objectiveName,
+                    cachedPlayerName,
+                    0
+                ));
+                objectiveCache.remove(cachedPlayerName);
+                removeCount++;
+                if (ServerScoreboardLogger.isDebugEnabled()) {
                     ServerScoreboardLogger.debug("Removed score: " + cachedPlayerName);
-                } else {
+                }
+            } else {
+                if (ServerScoreboardLogger.isDebugEnabled()) {
                     ServerScoreboardLogger.debug("Skipped removal due to rate limit: " + cachedPlayerName);
                 }
             }
         }
         
         if (updateCount > 0 || removeCount > 0) {
-            ServerScoreboardLogger.info("Sent differential update for " + objectiveName + " to " + player.getName().getString() + 
-                ": " + updateCount + " updates, " + removeCount + " removes (total scores: " + currentScores.size() + ")");
+            if (ServerScoreboardLogger.isDebugEnabled()) {
+                ServerScoreboardLogger.debug("Sent differential update for " + objectiveName + " to " + player.getName().getString() + 
+                    ": " + updateCount + " updates, " + removeCount + " removes (visible: " + visibleScores.size() + ", total scores: " + snapshot.scores.size() + ")");
+            }
             
             // スコアボード表示を確実に維持（消えるのを防ぐ）
-            player.networkHandler.sendPacket(new net.minecraft.network.packet.s2c.play.ScoreboardDisplayS2CPacket(1, objective));
+            ModMetrics.sendPacket(player, new net.minecraft.network.packet.s2c.play.ScoreboardDisplayS2CPacket(1, objective));
         }
     }
     
@@ -948,6 +1042,7 @@ public class ServerScoreboardManager {
         for (Map<String, Map<String, Integer>> playerCache : playerScoreboardCache.values()) {
             playerCache.remove(objectiveName);
         }
+        SidebarWindow.clearSnapshot(objectiveName);
         ServerScoreboardLogger.debug("Cleared cache for objective: " + objectiveName);
     }
     
@@ -957,6 +1052,11 @@ public class ServerScoreboardManager {
             try {
                 NbtCompound nbt = NbtIo.readCompressed(statsConfigFile);
                 
+                // 仮想モード（統計の有効化より先に適用する）
+                if (nbt.contains("virtualMode")) {
+                    TotalStatsManager.setVirtualMode(nbt.getBoolean("virtualMode"));
+                }
+                
                 // 有効な統計を読み込み
                 if (nbt.contains("enabledStats")) {
                     NbtList enabledList = nbt.getList("enabledStats", 8); // 8 = String
@@ -1004,6 +1104,8 @@ public class ServerScoreboardManager {
         }
         nbt.put("excludedPlayers", excludedList);
         
+        nbt.putBoolean("virtualMode", TotalStatsManager.isVirtualMode());
+        
         try {
             NbtIo.writeCompressed(nbt, statsConfigFile);
             ServerScoreboardLogger.info("Saved total stats config: " + 
@@ -0,0 +1,299 @@
+package com.scserver.serverscoreboard;
+
+import net.minecraft.scoreboard.ScoreboardObjective;
+import net.minecraft.scoreboard.ScoreboardPlayerScore;
+import net.minecraft.server.MinecraftServer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * サイドバーの表示ウィンドウ
+ * バニラクライアントはサイドバーに最大15行しか表示しないため、
+ * 上位エントリ＋閲覧者自身＋$SERVER_TOTALのみを送信対象にする
+ */
+public class SidebarWindow {
+    public static final String SERVER_TOTAL_MARKER = "$SERVER_TOTAL";
+
+    // オブジェクティブ名 -> 同一tick内で共有するスコアのスナップショット
+    private static final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+    // 順位インデックスを持っているオブジェクティブ（表示中で、ウィンドウが必要な大きさのもの）
+    private static final Set<String> indexedObjectives = ConcurrentHashMap.newKeySet();
+
+    public static final class Snapshot {
+        public final String objectiveName;
+        public final Map<String, Integer> scores;
+        private final List<String> totalEntries;
+        private final int tick;
+
+        Snapshot(String objectiveName, Map<String, Integer> scores, List<String> totalEntries, int tick) {
+            this.objectiveName = objectiveName;
+            this.scores = scores;
+            this.totalEntries = totalEntries;
+            this.tick = tick;
+        }
+    }
+
+    // 閲覧者に送信するエントリと、クライアントから削除するエントリ
+    public static final class Selection {
+        public final Map<String, Integer> visible;
+        public final List<String> removed;
+
+        Selection(Map<String, Integer> visible, List<String> removed) {
+            this.visible = visible;
+            this.removed = removed;
+        }
+    }
+
+    // バニラのクライアントは#で始まるエントリをサイドバーに表示しない（15行の枠に数えない）
+    private static boolean isHidden(String entryName) {
+        return entryName.startsWith("#");
+    }
+
+    // 順位で選ぶエントリか（$SERVER_TOTALは常に表示し、#で始まるエントリは表示されない）
+    private static boolean isRanked(String entryName) {
+        return !entryName.contains(SERVER_TOTAL_MARKER) && !isHidden(entryName);
+    }
+
+    public static boolean shouldApply(int entryCount) {
+        return ServerScoreboardConfig.SIDEBAR_WINDOW_ENABLED && entryCount > ServerScoreboardConfig.SIDEBAR_VISIBLE_LINES;
+    }
+
+    /**
+     * オブジェクティブのスコアを取得（同じtick内は複数の閲覧者で使い回す）
+     */
+    public static Snapshot snapshot(MinecraftServer server, ScoreboardObjective objective) {
+        String objectiveName = objective.getName();
+        int tick = server.getTicks();
+        Snapshot cached = snapshots.get(objectiveName);
+        if (cached != null && cached.tick == tick) {
+            return cached;
+        }
+
+        Map<String, Integer> scores = new HashMap<>();
+        List<String> totalEntries = new ArrayList<>();
+        if (objective instanceof CustomScoreboardPacketSender.VirtualObjective) {
+            // 仮想モードの統計はMOD内のデータから取得
+            scores.putAll(TotalStatsManager.getVirtualEntries(objectiveName));
+        } else {
+            for (ScoreboardPlayerScore score : server.getScoreboard().getAllPlayerScores(objective)) {
+                scores.put(score.getPlayerName(), score.getScore());
+            }
+        }
+        for (String playerName : scores.keySet()) {
+            if (playerName.contains(SERVER_TOTAL_MARKER)) {
+                totalEntries.add(playerName);
+            }
+        }
+
+        Snapshot snapshot = new Snapshot(objectiveName, Collections.unmodifiableMap(scores), totalEntries, tick);
+        snapshots.put(objectiveName, snapshot);
+        return snapshot;
+    }
+
+    /**
+     * 表示中のオブジェクティブの順位インデックスにスコアの変更を反映（ObjectiveChangeStream.pollと同じtickに呼ぶ）
+     * インデックスは最初に必要になったときだけ現在のスコアから作り、以降は変更されたエントリのみ更新する
+     * @param objectiveNames サイドバーに表示中のオブジェクティブ（それ以外のインデックスは破棄する）
+     * @param changes ObjectiveChangeStream.pollが返した変更
+     */
+    public static void updateIndexes(MinecraftServer server, Set<String> objectiveNames,
+                                     Map<String, List<ObjectiveChangeStream.Change>> changes) {
+        Iterator<String> it = indexedObjectives.iterator();
+        while (it.hasNext()) {
+            String objectiveName = it.next();
+            if (!objectiveNames.contains(objectiveName)) {
+                it.remove();
+                ScoreboardRankIndex.removeObjective(objectiveName);
+            }
+        }
+
+        for (String objectiveName : objectiveNames) {
+            ScoreboardObjective objective = ServerScoreboardManager.resolveObjective(objectiveName);
+            if (objective == null) {
+                if (indexedObjectives.remove(objectiveName)) {
+                    ScoreboardRankIndex.removeObjective(objectiveName);
+                }
+                continue;
+            }
+
+            if (indexedObjectives.contains(objectiveName)) {
+                List<ObjectiveChangeStream.Change> objectiveChanges = changes.get(objectiveName);
+                if (objectiveChanges == null) {
+                    continue;
+                }
+                for (ObjectiveChangeStream.Change change : objectiveChanges) {
+                    if (!isRanked(change.entry)) {
+                        continue;
+                    }
+                    if (change.score != null) {
+                        ScoreboardRankIndex.updateScore(objectiveName, change.entry, change.score);
+                    } else {
+                        ScoreboardRankIndex.removeScore(objectiveName, change.entry);
+                    }
+                }
+                continue;
+            }
+
+            // 小さいオブジェクティブではインデックスを作らない
+            Snapshot snapshot = snapshot(server, objective);
+            if (!shouldApply(snapshot.scores.size())) {
+                continue;
+            }
+            ScoreboardRankIndex.removeObjective(objectiveName);
+            for (Map.Entry<String, Integer> entry : snapshot.scores.entrySet()) {
+                if (isRanked(entry.getKey())) {
+                    ScoreboardRankIndex.updateScore(objectiveName, entry.getKey(), entry.getValue());
+                }
+            }
+            indexedObjectives.add(objectiveName);
+        }
+    }
+
+    /**
+     * 閲覧者に送信するエントリを選択（順位インデックスの上位ウィンドウを使用）
+     * @param snapshot オブジェクティブのスナップショット
+     * @param viewerName 閲覧者のプレイヤー名
+     * @param sentEntries 閲覧者に送信済みのエントリ
+     * @return 送信対象のエントリ（ウィンドウ不要の場合は全エントリ）と、削除するエントリ
+     */
+    public static Selection selectVisible(Snapshot snapshot, String viewerName, Set<String> sentEntries) {
+        Map<String, Integer> scores = snapshot.scores;
+        ScoreboardRankIndex.RankedObjective index = ScoreboardRankIndex.get(snapshot.objectiveName);
+        if (!shouldApply(scores.size()) || index == null) {
+            // インデックスがまだない（表示を始めたばかり）場合はその場で上位を求める
+            Map<String, Integer> visible = shouldApply(scores.size())
+                ? selectVisible(scores, rank(scores), viewerName)
+                : scores;
+            List<String> removed = new ArrayList<>();
+            for (String entryName : sentEntries) {
+                if (!visible.containsKey(entryName)) {
+                    removed.add(entryName);
+                }
+            }
+            return new Selection(visible, removed);
+        }
+
+        Map<String, Integer> visible = new HashMap<>();
+        for (String totalEntry : snapshot.totalEntries) {
+            visible.put(totalEntry, scores.get(totalEntry));
+        }
+        int slots = ServerScoreboardConfig.SIDEBAR_VISIBLE_LINES - visible.size();
+        Integer ownScore = scores.get(viewerName);
+        if (ownScore != null && visible.putIfAbsent(viewerName, ownScore) == null) {
+            // 閲覧者自身が上位ウィンドウの外にいる場合は、その分の枠を空ける
+            int ownRank = index.getRank(viewerName);
+            if (ownRank < 0 || ownRank > slots) {
+                slots--;
+            }
+        }
+
+        // 上位ウィンドウから外れたエントリのみ削除する
+        ScoreboardRankIndex.WindowDelta delta = index.diffTopWindow(sentEntries, Math.max(slots, 0));
+        List<String> removed = new ArrayList<>();
+        for (ScoreboardRankIndex.RankedEntry entry : delta.window) {
+            Integer score = scores.get(entry.playerName);
+            if (score != null) {
+                visible.put(entry.playerName, score);
+            } else if (sentEntries.contains(entry.playerName)) {
+                // 前回の変更の反映以降に削除されたエントリ
+                removed.add(entry.playerName);
+            }
+        }
+        for (String entryName : delta.left) {
+            if (!visible.containsKey(entryName)) {
+                removed.add(entryName);
+            }
+        }
+        return new Selection(visible, removed);
+    }
+
+    // 複数の閲覧者で使い回す上位エントリと$SERVER_TOTALのエントリ
+    public static final class Ranking {
+        // スコア降順・名前昇順の上位エントリ（$SERVER_TOTALと#で始まるエントリを除く）
+        final List<Map.Entry<String, Integer>> top;
+        final List<String> totalEntries;
+
+        Ranking(List<Map.Entry<String, Integer>> top, List<String> totalEntries) {
+            this.top = top;
+            this.totalEntries = totalEntries;
+        }
+    }
+
+    /**
+     * 上位エントリを求める（同じスコアを複数の閲覧者に送る場合に1回だけ求める）
+     */
+    public static Ranking rank(Map<String, Integer> scores) {
+        int limit = ServerScoreboardConfig.SIDEBAR_VISIBLE_LINES;
+        List<String> totalEntries = new ArrayList<>();
+        // 先頭が最も順位の低いエントリになるヒープ（スコア昇順、同点は名前降順）
+        PriorityQueue<Map.Entry<String, Integer>> heap = new PriorityQueue<>(limit + 1, (a, b) -> {
+            int cmp = Integer.compare(a.getValue(), b.getValue());
+            return cmp != 0 ? cmp : b.getKey().compareToIgnoreCase(a.getKey());
+        });
+        for (Map.Entry<String, Integer> entry : scores.entrySet()) {
+            if (entry.getKey().contains(SERVER_TOTAL_MARKER)) {
+                totalEntries.add(entry.getKey());
+                continue;
+            }
+            if (isHidden(entry.getKey())) {
+                continue;
+            }
+            heap.offer(entry);
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+        List<Map.Entry<String, Integer>> top = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            Map.Entry<String, Integer> entry = heap.poll();
+            // 元のマップが後で変更されても影響しないようにコピーする
+            top.add(Map.entry(entry.getKey(), entry.getValue()));
+        }
+        Collections.reverse(top);
+        return new Ranking(top, totalEntries);
+    }
+
+    /**
+     * 閲覧者に送信するエントリを選択（rankで求めた上位エントリを使用するためO(15)）
+     */
+    public static Map<String, Integer> selectVisible(Map<String, Integer> scores, Ranking ranking, String viewerName) {
+        if (!shouldApply(scores.size())) {
+            return scores;
+        }
+
+        Map<String, Integer> visible = new HashMap<>();
+        for (String totalEntry : ranking.totalEntries) {
+            visible.put(totalEntry, scores.get(totalEntry));
+        }
+        Integer ownScore = scores.get(viewerName);
+        if (ownScore != null) {
+            visible.put(viewerName, ownScore);
+        }
+
+        // 固定エントリ分の枠を除いて上位から埋める
+        int limit = ServerScoreboardConfig.SIDEBAR_VISIBLE_LINES;
+        for (Map.Entry<String, Integer> entry : ranking.top) {
+            if (visible.size() >= limit) {
+                break;
+            }
+            visible.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+        return visible;
+    }
+
+    public static void clearSnapshot(String objectiveName) {
+        snapshots.remove(objectiveName);
+    }
+
+    public static void clearAll() {
+        snapshots.clear();
+    }
+}
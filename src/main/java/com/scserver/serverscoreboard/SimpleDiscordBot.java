@@ -8,8 +8,11 @@ import net.minecraft.server.MinecraftServer;
 import java.io.*;
 import java.net.URI;
 import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -19,7 +22,6 @@ import java.nio.ByteBuffer;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.zip.Inflater;
 import java.util.zip.DataFormatException;
 import java.util.function.Consumer;
 
@@ -30,10 +32,16 @@ public class SimpleDiscordBot implements WebSocket.Listener {
     private final Map<String, ForumThreadInfo> forumThreads = new ConcurrentHashMap<>();
     private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
     private final AtomicInteger sequence = new AtomicInteger(0);
-    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-    private final Inflater inflater = new Inflater();
+    // Gatewayのzlib-stream圧縮の展開（接続ごとに初期化）
+    private final GatewayInflater gatewayInflater = new GatewayInflater();
     
     private String botToken;
+    private String apiBaseUrl = DiscordRestClient.DEFAULT_BASE_URL;
+    // 変更があった場合のみ投稿する間隔（分、0で無効＝毎朝5時のみ）
+    private int publishIntervalMinutes = 0;
+    // Gatewayの通信を圧縮するか（zlib-stream）
+    private boolean gatewayCompression = true;
+    private volatile DiscordRestClient rest;
     private String applicationId;
     private String forumChannelId;
     private MinecraftServer server;
@@ -43,6 +51,12 @@ public class SimpleDiscordBot implements WebSocket.Listener {
     private ScheduledFuture<?> heartbeatTask;
     private final AtomicBoolean isReconnecting = new AtomicBoolean(false);
     private final AtomicLong reconnectDelay = new AtomicLong(5000); // Start with 5 seconds
+    private static final long GATEWAY_CONNECT_TIMEOUT_SECONDS = 15;
+    private static final long CLOSE_TIMEOUT_SECONDS = 3;
+    // オートコンプリートの候補数・候補名の長さの上限（Discordの制限）
+    private static final int MAX_AUTOCOMPLETE_CHOICES = 25;
+    private static final int MAX_CHOICE_NAME_LENGTH = 100;
+    private static final ModMetrics.Counter PUBLISH_SKIPPED = ModMetrics.counter("discord_publish_skipped", "Discord 変更なしで省略");
     
     private SimpleDiscordBot() {}
     
@@ -53,7 +67,11 @@ public class SimpleDiscordBot implements WebSocket.Listener {
         return instance;
     }
     
-    public void initialize(MinecraftServer server) {
+    /**
+     * Botを起動（通信はすべて非同期で行い、呼び出し元のスレッドは待たない）
+     * @return Gateway接続まで完了したときに完了するFuture
+     */
+    public CompletableFuture<Void> initialize(MinecraftServer server) {
         this.server = server;
         
         // schedulerが未作成またはシャットダウンされている場合は新規作成
@@ -65,51 +83,48 @@ public class SimpleDiscordBot implements WebSocket.Listener {
         loadBotToken();
         if (botToken == null || botToken.isEmpty()) {
             ServerScoreboardLogger.error("Discord bot token not found in config");
-            return;
+            return CompletableFuture.completedFuture(null);
         }
         
-        // Bot情報を取得
-        fetchBotInfo();
+        // REST APIの送信キュー（レート制限・再送・編集のまとめ）
+        rest = new DiscordRestClient(httpClient, scheduler, apiBaseUrl, botToken);
         
         // 設定を読み込む
         loadConfig();
         
-        // スラッシュコマンドを登録
-        registerSlashCommands();
-        
-        // Gateway WebSocketに接続
-        connectToGateway();
-        
         // 定期更新をスケジュール
         scheduleDaily5AM();
+        schedulePeriodicPublish();
         
-        // Gateway接続が完了するまで少し待つ
-        scheduler.schedule(() -> {
-            isRunning = true;
-            ServerScoreboardLogger.info("Discord Bot initialization complete");
-        }, 3, TimeUnit.SECONDS);
+        // Bot情報の取得 → スラッシュコマンドの登録 → Gateway接続
+        // 各段階は失敗してもログに記録して次へ進む
+        return fetchBotInfo()
+            .thenCompose(v -> registerSlashCommands())
+            .thenCompose(v -> connectToGateway())
+            .whenComplete((v, e) -> {
+                // 起動中に停止された場合は起動済みにしない
+                if (!scheduler.isShutdown()) {
+                    isRunning = true;
+                    ServerScoreboardLogger.info("Discord Bot initialization complete");
+                }
+            });
     }
     
-    private void fetchBotInfo() {
-        try {
-            HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("https://discord.com/api/v10/users/@me"))
-                .header("Authorization", "Bot " + botToken)
-                .GET()
-                .build();
-            
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            if (response.statusCode() == 200) {
-                JsonObject botInfo = JsonParser.parseString(response.body()).getAsJsonObject();
-                applicationId = botInfo.get("id").getAsString();
-                ServerScoreboardLogger.info("Bot connected as: " + botInfo.get("username").getAsString() + " (ID: " + applicationId + ")");
-            } else {
-                ServerScoreboardLogger.error("Failed to fetch bot info. Status code: " + response.statusCode() + ", Response: " + response.body());
-            }
-        } catch (Exception e) {
-            ServerScoreboardLogger.error("Failed to fetch bot info: " + e.getMessage());
-            e.printStackTrace();
-        }
+    private CompletableFuture<Void> fetchBotInfo() {
+        return rest.get("/users/@me")
+            .thenAccept(response -> {
+                if (response.statusCode() == 200) {
+                    JsonObject botInfo = JsonParser.parseString(response.body()).getAsJsonObject();
+                    applicationId = botInfo.get("id").getAsString();
+                    ServerScoreboardLogger.info("Bot connected as: " + botInfo.get("username").getAsString() + " (ID: " + applicationId + ")");
+                } else {
+                    ServerScoreboardLogger.error("Failed to fetch bot info. Status code: " + response.statusCode() + ", Response: " + response.body());
+                }
+            })
+            .exceptionally(e -> {
+                ServerScoreboardLogger.error("Failed to fetch bot info: " + DiscordRestClient.describe(e));
+                return null;
+            });
     }
     
     public void setForumChannel(String channelId) {
@@ -117,13 +132,20 @@ public class SimpleDiscordBot implements WebSocket.Listener {
         saveConfig();
     }
     
-    public void addScoreboard(String objectiveName) {
+    /**
+     * スコアボードをDiscordに追加（フォーラムにスレッドを作成）
+     * @return スレッドの作成が完了したときに完了するFuture（失敗時は例外で完了）
+     */
+    public CompletableFuture<Void> addScoreboard(String objectiveName) {
         if (forumChannelId == null) {
             throw new IllegalStateException("フォーラムチャンネルが設定されていません");
         }
+        if (rest == null) {
+            throw new IllegalStateException("Discord Botが起動していません");
+        }
         
         // フォーラムにスレッドを作成
-        createForumThread(objectiveName);
+        return createForumThread(objectiveName);
     }
     
     public void removeScoreboard(String objectiveName) {
@@ -131,25 +153,20 @@ public class SimpleDiscordBot implements WebSocket.Listener {
         saveConfig();
     }
     
-    private void createForumThread(String objectiveName) {
-        try {
-            JsonObject payload = new JsonObject();
-            payload.addProperty("name", objectiveName + " - 統計データ");
-            
-            // 初期メッセージ
-            JsonObject message = new JsonObject();
-            message.addProperty("content", "このスレッドには毎朝5時に統計データが更新されます。");
-            payload.add("message", message);
-            
-            HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("https://discord.com/api/v10/channels/" + forumChannelId + "/threads"))
-                .header("Authorization", "Bot " + botToken)
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(payload.toString()))
-                .build();
-            
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            if (response.statusCode() == 201) {
+    private CompletableFuture<Void> createForumThread(String objectiveName) {
+        JsonObject payload = new JsonObject();
+        payload.addProperty("name", objectiveName + " - 統計データ");
+        
+        // 初期メッセージ
+        JsonObject message = new JsonObject();
+        message.addProperty("content", "このスレッドには毎朝5時に統計データが更新されます。");
+        payload.add("message", message);
+        
+        return rest.post("/channels/" + forumChannelId + "/threads", payload.toString())
+            .thenAccept(response -> {
+                if (response.statusCode() != 201) {
+                    throw new IllegalStateException("スレッドの作成に失敗しました (HTTP " + response.statusCode() + ")");
+                }
                 JsonObject thread = JsonParser.parseString(response.body()).getAsJsonObject();
                 String threadId = thread.get("id").getAsString();
                 
@@ -159,100 +176,153 @@ public class SimpleDiscordBot implements WebSocket.Listener {
                 
                 // 初回の統計を投稿
                 updateScoreboardData(objectiveName);
-            }
-        } catch (Exception e) {
-            ServerScoreboardLogger.error("Failed to create forum thread: " + e.getMessage());
-        }
+            })
+            .whenComplete((v, e) -> {
+                if (e != null) {
+                    ServerScoreboardLogger.error("Failed to create forum thread: " + DiscordRestClient.describe(e));
+                }
+            });
     }
     
     public void updateScoreboardData(String objectiveName) {
         ForumThreadInfo info = forumThreads.get(objectiveName);
         if (info == null || server == null) return;
         
-        server.execute(() -> {
-            ScoreboardObjective objective = server.getScoreboard().getObjective(objectiveName);
-            if (objective == null) return;
-            
-            String data = getFormattedScoreboardDataForDiscord(objective);
-            if (data.isEmpty()) {
-                ServerScoreboardLogger.info("No data to display for objective: " + objectiveName);
-                return;
-            }
-            
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm:ss"));
-            
-            // 表示名を取得（色コードを除去）
-            String displayName = TotalStatsManager.getTotalDisplayName(objectiveName);
-            if (displayName == null) {
-                displayName = objective.getDisplayName().getString();
+        // サーバースレッドではスコアの写しのみ取得し、整形と送信はBotのスレッドで行う
+        server.submit(() -> captureSnapshot(objectiveName))
+            .thenAcceptAsync(snapshot -> {
+                if (snapshot != null) {
+                    publishSnapshot(info, snapshot);
+                }
+            }, scheduler)
+            .exceptionally(e -> {
+                ServerScoreboardLogger.error("Failed to update Discord scoreboard " + objectiveName + ": " + DiscordRestClient.describe(e));
+                return null;
+            });
+    }
+    
+    // フォーラムスレッドに統計を投稿（Botのスレッドで呼び出す）
+    // 前回投稿した内容と同じ場合は送信しない
+    private void publishSnapshot(ForumThreadInfo info, LeaderboardSnapshot snapshot) {
+        String data = formatLeaderboard(snapshot);
+        if (data.isEmpty()) {
+            ServerScoreboardLogger.info("No data to display for objective: " + snapshot.objectiveName);
+            return;
+        }
+        
+        // 更新時刻を除いた内容（タイトルと本文）で比較する
+        String contentHash = contentHash(snapshot.displayName, data);
+        if (info.lastMessageId != null && contentHash.equals(info.lastContentHash)) {
+            PUBLISH_SKIPPED.increment();
+            if (ServerScoreboardLogger.isDebugEnabled()) {
+                ServerScoreboardLogger.debug("Discord leaderboard unchanged, skipping update: " + snapshot.objectiveName);
             }
-            displayName = displayName.replaceAll("§[0-9a-fklmnor]", "");
-            
-            JsonObject embed = new JsonObject();
-            embed.addProperty("title", "【" + displayName + "】");
-            embed.addProperty("description", data);
-            embed.addProperty("color", 0x5865F2);
-            
-            JsonObject footer = new JsonObject();
-            footer.addProperty("text", "最終更新: " + timestamp);
-            embed.add("footer", footer);
-            
-            JsonArray embeds = new JsonArray();
-            embeds.add(embed);
-            
-            JsonObject payload = new JsonObject();
-            payload.add("embeds", embeds);
-            
-            if (info.lastMessageId == null) {
+            return;
+        }
+        
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm:ss"));
+        
+        JsonObject embed = buildEmbed(snapshot, data);
+        JsonObject footer = new JsonObject();
+        footer.addProperty("text", "最終更新: " + timestamp);
+        embed.add("footer", footer);
+        
+        JsonArray embeds = new JsonArray();
+        embeds.add(embed);
+        
+        JsonObject payload = new JsonObject();
+        payload.add("embeds", embeds);
+        
+        synchronized (info) {
+            if (info.pendingPost != null && !info.pendingPost.isDone()) {
+                // 投稿中（メッセージが重複しないよう、投稿の完了後にこの内容で編集する）
+                info.pendingPost.thenRunAsync(() -> publishSnapshot(info, snapshot), scheduler);
+            } else if (info.lastMessageId == null) {
                 // 新規投稿
-                sendMessage(info.threadId, payload.toString(), messageId -> {
+                CompletableFuture<Void> post = sendMessage(info.threadId, payload.toString(), messageId -> {
                     info.lastMessageId = messageId;
+                    info.lastContentHash = contentHash;
                     saveConfig();
                 });
+                info.pendingPost = post;
+                post.whenComplete((v, e) -> {
+                    synchronized (info) {
+                        if (info.pendingPost == post) {
+                            info.pendingPost = null;
+                        }
+                    }
+                });
             } else {
                 // 既存メッセージを編集
-                editMessage(info.threadId, info.lastMessageId, payload.toString());
-            }
-        });
-    }
-    
-    private void sendMessage(String channelId, String payload, Consumer<String> onSuccess) {
-        try {
-            HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("https://discord.com/api/v10/channels/" + channelId + "/messages"))
-                .header("Authorization", "Bot " + botToken)
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(payload))
-                .build();
-            
-            httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
-                .thenAccept(response -> {
-                    if (response.statusCode() == 200) {
-                        JsonObject message = JsonParser.parseString(response.body()).getAsJsonObject();
-                        String messageId = message.get("id").getAsString();
-                        onSuccess.accept(messageId);
+                // 送信待ちの編集は最新の内容にまとめられるため、最後に依頼した内容の応答のときだけ記録する
+                info.pendingContentHash = contentHash;
+                editMessage(info.threadId, info.lastMessageId, payload.toString(), () -> {
+                    if (contentHash.equals(info.pendingContentHash)) {
+                        info.lastContentHash = contentHash;
+                        saveConfig();
                     }
                 });
-        } catch (Exception e) {
-            ServerScoreboardLogger.error("Failed to send message: " + e.getMessage());
+            }
         }
     }
     
-    private void editMessage(String channelId, String messageId, String payload) {
+    private static String contentHash(String title, String data) {
         try {
-            HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("https://discord.com/api/v10/channels/" + channelId + "/messages/" + messageId))
-                .header("Authorization", "Bot " + botToken)
-                .header("Content-Type", "application/json")
-                .method("PATCH", HttpRequest.BodyPublishers.ofString(payload))
-                .build();
-            
-            httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
-        } catch (Exception e) {
-            ServerScoreboardLogger.error("Failed to edit message: " + e.getMessage());
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(title.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(data.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256は必ず利用できる
+            throw new IllegalStateException(e);
         }
     }
     
+    private static JsonObject buildEmbed(LeaderboardSnapshot snapshot, String data) {
+        // 表示名の色コードを除去
+        String displayName = snapshot.displayName.replaceAll("§[0-9a-fklmnor]", "");
+        
+        JsonObject embed = new JsonObject();
+        embed.addProperty("title", "【" + displayName + "】");
+        embed.addProperty("description", data);
+        embed.addProperty("color", 0x5865F2);
+        return embed;
+    }
+    
+    private CompletableFuture<Void> sendMessage(String channelId, String payload, Consumer<String> onSuccess) {
+        return rest.post("/channels/" + channelId + "/messages", payload)
+            .thenAccept(response -> {
+                if (response.statusCode() == 200) {
+                    JsonObject message = JsonParser.parseString(response.body()).getAsJsonObject();
+                    String messageId = message.get("id").getAsString();
+                    onSuccess.accept(messageId);
+                } else {
+                    ServerScoreboardLogger.error("Failed to send message. Status code: " + response.statusCode() + ", Response: " + response.body());
+                }
+            })
+            .exceptionally(e -> {
+                ServerScoreboardLogger.error("Failed to send message: " + e.getMessage());
+                return null;
+            });
+    }
+    
+    private void editMessage(String channelId, String messageId, String payload, Runnable onSuccess) {
+        // 送信待ちの同じメッセージへの編集は最新の内容にまとめられる
+        rest.patch("/channels/" + channelId + "/messages/" + messageId, payload)
+            .thenAccept(response -> {
+                if (response.statusCode() == 200) {
+                    onSuccess.run();
+                } else {
+                    ServerScoreboardLogger.error("Failed to edit message. Status code: " + response.statusCode() + ", Response: " + response.body());
+                }
+            })
+            .exceptionally(e -> {
+                ServerScoreboardLogger.error("Failed to edit message: " + e.getMessage());
+                return null;
+            });
+    }
+    
     private void scheduleDaily5AM() {
         Calendar calendar = Calendar.getInstance();
         calendar.set(Calendar.HOUR_OF_DAY, 5);
@@ -272,6 +342,22 @@ public class SimpleDiscordBot implements WebSocket.Listener {
         }, initialDelay, TimeUnit.DAYS.toMillis(1), TimeUnit.MILLISECONDS);
     }
     
+    /**
+     * N分ごとに全スレッドを更新（内容が変わったスレッドのみ実際に送信される）
+     */
+    private void schedulePeriodicPublish() {
+        if (publishIntervalMinutes <= 0) {
+            return;
+        }
+        
+        scheduler.scheduleAtFixedRate(() -> {
+            for (String objectiveName : forumThreads.keySet()) {
+                updateScoreboardData(objectiveName);
+            }
+        }, publishIntervalMinutes, publishIntervalMinutes, TimeUnit.MINUTES);
+        ServerScoreboardLogger.info("Discord leaderboards will be published every " + publishIntervalMinutes + " minutes when changed");
+    }
+    
     private void loadBotToken() {
         try {
             File configDir = new File("config/serverscoreboard");
@@ -284,6 +370,7 @@ public class SimpleDiscordBot implements WebSocket.Listener {
                 // デフォルトの設定ファイルを作成
                 JsonObject defaultConfig = new JsonObject();
                 defaultConfig.addProperty("token", "YOUR_DISCORD_BOT_TOKEN_HERE");
+                defaultConfig.addProperty("publishIntervalMinutes", 0);
                 
                 try (FileWriter writer = new FileWriter(file)) {
                     gson.toJson(defaultConfig, writer);
@@ -296,6 +383,11 @@ public class SimpleDiscordBot implements WebSocket.Listener {
             
             try (FileReader reader = new FileReader(file)) {
                 JsonObject config = gson.fromJson(reader, JsonObject.class);
+                // REST APIのURL（省略時はDiscord本番、動作確認用にローカルのサーバーを指定できる）
+                apiBaseUrl = config.has("apiBaseUrl") ? config.get("apiBaseUrl").getAsString() : DiscordRestClient.DEFAULT_BASE_URL;
+                // 変更があった場合のみN分ごとに投稿（0で無効）
+                publishIntervalMinutes = config.has("publishIntervalMinutes") ? config.get("publishIntervalMinutes").getAsInt() : 0;
+                gatewayCompression = !config.has("gatewayCompression") || config.get("gatewayCompression").getAsBoolean();
                 if (config.has("token")) {
                     botToken = config.get("token").getAsString();
                     if (botToken.equals("YOUR_DISCORD_BOT_TOKEN_HERE")) {
@@ -309,48 +401,51 @@ public class SimpleDiscordBot implements WebSocket.Listener {
         }
     }
     
-    private void connectToGateway() {
+    private CompletableFuture<Void> connectToGateway() {
         if (webSocket != null && !webSocket.isOutputClosed()) {
             ServerScoreboardLogger.info("WebSocket connection already established.");
-            return;
+            return CompletableFuture.completedFuture(null);
         }
         
-        try {
-            HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("https://discord.com/api/v10/gateway/bot"))
-                .header("Authorization", "Bot " + botToken)
-                .GET()
-                .build();
-            
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            if (response.statusCode() == 200) {
+        return rest.get("/gateway/bot")
+            .thenCompose(response -> {
+                if (response.statusCode() != 200) {
+                    throw new IllegalStateException("Failed to get gateway URL: " + response.body());
+                }
                 JsonObject gateway = JsonParser.parseString(response.body()).getAsJsonObject();
                 String wsUrl = gateway.get("url").getAsString() + "?v=10&encoding=json";
+                if (gatewayCompression) {
+                    wsUrl += "&compress=zlib-stream";
+                }
                 
-                httpClient.newWebSocketBuilder()
-                    .buildAsync(URI.create(wsUrl), this)
-                    .thenAccept(ws -> {
-                        this.webSocket = ws;
-                        ServerScoreboardLogger.info("WebSocket connection established");
-                        isReconnecting.set(false);
-                        reconnectDelay.set(5000); // Reset reconnect delay on successful connection
-                    })
-                    .exceptionally(ex -> {
-                        ServerScoreboardLogger.error("Failed to establish WebSocket connection: " + ex.getMessage());
-                        scheduleReconnect();
-                        return null;
-                    });
-            } else {
-                 ServerScoreboardLogger.error("Failed to get gateway URL: " + response.body());
-                 scheduleReconnect();
-            }
-        } catch (Exception e) {
-            ServerScoreboardLogger.error("Failed to connect to Discord Gateway: " + e.getMessage());
-            scheduleReconnect();
-        }
+                // 新しい接続は圧縮状態を引き継がない
+                synchronized (gatewayInflater) {
+                    gatewayInflater.reset();
+                }
+                
+                return httpClient.newWebSocketBuilder()
+                    .connectTimeout(Duration.ofSeconds(GATEWAY_CONNECT_TIMEOUT_SECONDS))
+                    .buildAsync(URI.create(wsUrl), this);
+            })
+            .thenAccept(ws -> {
+                this.webSocket = ws;
+                ServerScoreboardLogger.info("WebSocket connection established");
+                isReconnecting.set(false);
+                reconnectDelay.set(5000); // Reset reconnect delay on successful connection
+            })
+            .exceptionally(ex -> {
+                ServerScoreboardLogger.error("Failed to connect to Discord Gateway: " + DiscordRestClient.describe(ex));
+                scheduleReconnect();
+                return null;
+            });
     }
     
-    private void registerSlashCommands() {
+    private CompletableFuture<Void> registerSlashCommands() {
+        if (applicationId == null) {
+            ServerScoreboardLogger.warn("Skipping slash command registration: application ID is unknown");
+            return CompletableFuture.completedFuture(null);
+        }
+        
         try {
             JsonArray commands = new JsonArray();
             
@@ -383,16 +478,19 @@ public class SimpleDiscordBot implements WebSocket.Listener {
             setChannelCmd.add("options", channelOptions);
             commands.add(setChannelCmd);
             
-            HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("https://discord.com/api/v10/applications/" + applicationId + "/commands"))
-                .header("Authorization", "Bot " + botToken)
-                .header("Content-Type", "application/json")
-                .PUT(HttpRequest.BodyPublishers.ofString(commands.toString()))
-                .build();
-            
-            httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            return rest.put("/applications/" + applicationId + "/commands", commands.toString())
+                .thenAccept(response -> {
+                    if (response.statusCode() != 200) {
+                        ServerScoreboardLogger.error("Failed to register slash commands. Status code: " + response.statusCode() + ", Response: " + response.body());
+                    }
+                })
+                .exceptionally(e -> {
+                    ServerScoreboardLogger.error("Failed to register slash commands: " + DiscordRestClient.describe(e));
+                    return null;
+                });
         } catch (Exception e) {
             ServerScoreboardLogger.error("Failed to register slash commands: " + e.getMessage());
+            return CompletableFuture.completedFuture(null);
         }
     }
     
@@ -416,6 +514,32 @@ public class SimpleDiscordBot implements WebSocket.Listener {
         return null;
     }
     
+    @Override
+    public CompletionStage<?> onBinary(WebSocket webSocket, ByteBuffer data, boolean last) {
+        // zlib-stream: 断片はバッファに溜め、末尾に達したら展開して処理する
+        String message = null;
+        try {
+            synchronized (gatewayInflater) {
+                message = gatewayInflater.feed(data);
+            }
+        } catch (DataFormatException e) {
+            ServerScoreboardLogger.error("Failed to decompress Gateway message: " + e.getMessage());
+            // 圧縮状態が壊れたため接続をやり直す
+            reconnect();
+            return null;
+        }
+        
+        if (message != null) {
+            try {
+                handleGatewayMessage(message);
+            } catch (Exception e) {
+                ServerScoreboardLogger.error("Error handling Gateway message: " + e.getMessage());
+            }
+        }
+        webSocket.request(1);
+        return null;
+    }
+    
     @Override
     public void onError(WebSocket webSocket, Throwable error) {
         ServerScoreboardLogger.error("WebSocket error: " + error.getMessage());
@@ -429,17 +553,20 @@ public class SimpleDiscordBot implements WebSocket.Listener {
         return null;
     }
     
-    private void handleGatewayMessage(String message) {
-        JsonObject payload = JsonParser.parseString(message).getAsJsonObject();
-        int op = payload.get("op").getAsInt();
+    private void handleGatewayMessage(String message) throws IOException {
+        // op・s・tのみ先に読み、dは処理するイベントの場合のみ展開する
+        GatewayPayload payload = GatewayPayload.parse(message);
+        int op = payload.op;
         
-        if (payload.has("s") && !payload.get("s").isJsonNull()) {
-            sequence.set(payload.get("s").getAsInt());
+        if (payload.sequence >= 0) {
+            sequence.set(payload.sequence);
         }
 
         switch (op) {
             case 0: // Dispatch
-                handleDispatch(payload);
+                if (payload.data != null) {
+                    handleDispatch(payload.type, payload.data);
+                }
                 break;
             case 7: // Reconnect
                 ServerScoreboardLogger.info("Received Reconnect from Discord. Reconnecting...");
@@ -452,15 +579,16 @@ public class SimpleDiscordBot implements WebSocket.Listener {
                 reconnect();
                 break;
             case 10: // Hello
-                handleHello(payload);
+                if (payload.data != null) {
+                    handleHello(payload.data);
+                }
                 break;
             case 11: // Heartbeat ACK
                 break;
         }
     }
     
-    private void handleHello(JsonObject payload) {
-        JsonObject d = payload.getAsJsonObject("d");
+    private void handleHello(JsonObject d) {
         int heartbeatInterval = d.get("heartbeat_interval").getAsInt();
         
         if (heartbeatTask != null) {
@@ -511,10 +639,7 @@ public class SimpleDiscordBot implements WebSocket.Listener {
         }
     }
     
-    private void handleDispatch(JsonObject payload) {
-        String t = payload.get("t").getAsString();
-        JsonObject d = payload.getAsJsonObject("d");
-        
+    private void handleDispatch(String t, JsonObject d) {
         switch (t) {
             case "READY":
                 sessionId = d.get("session_id").getAsString();
@@ -561,45 +686,37 @@ public class SimpleDiscordBot implements WebSocket.Listener {
         JsonObject data = interaction.getAsJsonObject("data");
         String objectiveName = data.getAsJsonArray("options").get(0).getAsJsonObject().get("value").getAsString();
         
-        // Minecraftサーバーでスコアボードデータを取得
-        server.execute(() -> {
-            ScoreboardObjective objective = server.getScoreboard().getObjective(objectiveName);
-            if (objective == null) {
-                sendInteractionResponse(interaction, "指定されたスコアボードが見つかりません: " + objectiveName, true);
-                return;
-            }
-            
-            ForumThreadInfo threadInfo = forumThreads.get(objectiveName);
-            if (threadInfo != null && forumChannelId != null) {
-                // フォーラムスレッドへのリンクを返す
-                String response = "スコアボードのデータはこちらで確認できます: <#" + threadInfo.threadId + ">";
-                sendInteractionResponse(interaction, response, true);
-                
-                // データを更新
-                updateScoreboardData(objectiveName);
-            } else {
-                // 直接データを返す
-                String scoreboardData = getFormattedScoreboardDataForDiscord(objective);
-                if (scoreboardData.isEmpty()) {
-                    sendInteractionResponse(interaction, "表示するデータがありません。", true);
+        // Minecraftサーバーでスコアの写しを取得し、整形はBotのスレッドで行う
+        server.submit(() -> captureSnapshot(objectiveName))
+            .thenAcceptAsync(snapshot -> {
+                if (snapshot == null) {
+                    sendInteractionResponse(interaction, "指定されたスコアボードが見つかりません: " + objectiveName, true);
                     return;
                 }
                 
-                String displayName = TotalStatsManager.getTotalDisplayName(objectiveName);
-                if (displayName == null) {
-                    displayName = objective.getDisplayName().getString();
+                ForumThreadInfo threadInfo = forumThreads.get(objectiveName);
+                if (threadInfo != null && forumChannelId != null) {
+                    // フォーラムスレッドへのリンクを返す
+                    String response = "スコアボードのデータはこちらで確認できます: <#" + threadInfo.threadId + ">";
+                    sendInteractionResponse(interaction, response, true);
+                    
+                    // 取得した写しでデータを更新
+                    publishSnapshot(threadInfo, snapshot);
+                } else {
+                    // 直接データを返す
+                    String scoreboardData = formatLeaderboard(snapshot);
+                    if (scoreboardData.isEmpty()) {
+                        sendInteractionResponse(interaction, "表示するデータがありません。", true);
+                        return;
+                    }
+                    
+                    sendInteractionResponseWithEmbed(interaction, buildEmbed(snapshot, scoreboardData), true);
                 }
-                // 色コードを除去
-                displayName = displayName.replaceAll("§[0-9a-fklmnor]", "");
-                
-                JsonObject embed = new JsonObject();
-                embed.addProperty("title", "【" + displayName + "】");
-                embed.addProperty("description", scoreboardData);
-                embed.addProperty("color", 0x5865F2);
-                
-                sendInteractionResponseWithEmbed(interaction, embed, true);
-            }
-        });
+            }, scheduler)
+            .exceptionally(e -> {
+                ServerScoreboardLogger.error("Failed to handle /scoreboard command: " + DiscordRestClient.describe(e));
+                return null;
+            });
     }
     
     private void handleSetChannelCommand(JsonObject interaction) {
@@ -617,26 +734,23 @@ public class SimpleDiscordBot implements WebSocket.Listener {
         if (commandName.equals("scoreboard")) {
             JsonArray choices = new JsonArray();
             
-            // Minecraftのスコアボードを取得
-            if (server != null) {
-                Collection<ScoreboardObjective> objectives = server.getScoreboard().getObjectives();
-                String focused = data.getAsJsonArray("options").get(0).getAsJsonObject().get("value").getAsString().toLowerCase();
-                
-                objectives.stream()
-                    .filter(obj -> obj.getName().toLowerCase().contains(focused))
-                    .limit(25)
-                    .forEach(obj -> {
-                        JsonObject choice = new JsonObject();
-                        choice.addProperty("name", obj.getDisplayName().getString() + " (" + obj.getName() + ")");
-                        choice.addProperty("value", obj.getName());
-                        choices.add(choice);
-                    });
+            // Gatewayのスレッドからはスコアボードを直接参照せず、サーバースレッドで作成済みの検索インデックスを使う
+            String focused = data.getAsJsonArray("options").get(0).getAsJsonObject().get("value").getAsString();
+            for (ObjectiveIndex.Entry entry : ObjectiveIndex.current().search(focused, true, MAX_AUTOCOMPLETE_CHOICES)) {
+                JsonObject choice = new JsonObject();
+                choice.addProperty("name", truncate(entry.displayName + " (" + entry.name + ")", MAX_CHOICE_NAME_LENGTH));
+                choice.addProperty("value", entry.name);
+                choices.add(choice);
             }
             
             sendAutocompleteResponse(interaction, choices);
         }
     }
     
+    private static String truncate(String text, int maxLength) {
+        return text.length() <= maxLength ? text : text.substring(0, maxLength - 1) + "…";
+    }
+    
     private void sendInteractionResponse(JsonObject interaction, String content, boolean ephemeral) {
         JsonObject response = new JsonObject();
         response.addProperty("type", 4); // CHANNEL_MESSAGE_WITH_SOURCE
@@ -682,20 +796,15 @@ public class SimpleDiscordBot implements WebSocket.Listener {
         String interactionId = interaction.get("id").getAsString();
         String interactionToken = interaction.get("token").getAsString();
         
-        try {
-            HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("https://discord.com/api/v10/interactions/" + interactionId + "/" + interactionToken + "/callback"))
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(response.toString()))
-                .build();
-            
-            httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
-        } catch (Exception e) {
-            ServerScoreboardLogger.error("Failed to send interaction response: " + e.getMessage());
-        }
+        // インタラクションの応答はBotトークン不要
+        rest.request("POST", "/interactions/" + interactionId + "/" + interactionToken + "/callback", response.toString(), false, null)
+            .exceptionally(e -> {
+                ServerScoreboardLogger.error("Failed to send interaction response: " + e.getMessage());
+                return null;
+            });
     }
     
-    private void saveConfig() {
+    private synchronized void saveConfig() {
         try {
             File configDir = new File("config/serverscoreboard");
             if (!configDir.exists()) configDir.mkdirs();
@@ -712,6 +821,9 @@ public class SimpleDiscordBot implements WebSocket.Listener {
                 if (entry.getValue().lastMessageId != null) {
                     thread.addProperty("lastMessageId", entry.getValue().lastMessageId);
                 }
+                if (entry.getValue().lastContentHash != null) {
+                    thread.addProperty("lastContentHash", entry.getValue().lastContentHash);
+                }
                 threads.add(thread);
             }
             root.add("forumThreads", threads);
@@ -745,8 +857,10 @@ public class SimpleDiscordBot implements WebSocket.Listener {
                         String lastMessageId = thread.has("lastMessageId") ? 
                             thread.get("lastMessageId").getAsString() : null;
                         
-                        forumThreads.put(objectiveName, 
-                            new ForumThreadInfo(objectiveName, threadId, lastMessageId));
+                        ForumThreadInfo info = new ForumThreadInfo(objectiveName, threadId, lastMessageId);
+                        info.lastContentHash = thread.has("lastContentHash") ?
+                            thread.get("lastContentHash").getAsString() : null;
+                        forumThreads.put(objectiveName, info);
                     }
                 }
             }
@@ -778,7 +892,7 @@ public class SimpleDiscordBot implements WebSocket.Listener {
         
         if (webSocket != null) {
             try {
-                webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "Shutting down").join();
+                webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "Shutting down").get(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
             } catch (Exception e) {
                 // Ignore
             }
@@ -798,16 +912,20 @@ public class SimpleDiscordBot implements WebSocket.Listener {
         }
     }
     
-    public void reload(MinecraftServer server) {
-        shutdown();
-        scheduler = Executors.newScheduledThreadPool(3);
-        scheduler.schedule(() -> initialize(server), 1, TimeUnit.SECONDS);
+    /**
+     * Botを再起動（停止・起動ともにサーバースレッドの外で行う）
+     * @return 再起動が完了したときに完了するFuture
+     */
+    public CompletableFuture<Void> reload(MinecraftServer server) {
+        return CompletableFuture.runAsync(this::shutdown)
+            .thenCompose(v -> initialize(server));
     }
     
     private void reconnect() {
         if (webSocket != null) {
             try {
-                webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "Reconnecting").join();
+                // クローズの完了は待たない
+                webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "Reconnecting");
             } catch (Exception e) {
                 // Ignore
             }
@@ -853,83 +971,140 @@ public class SimpleDiscordBot implements WebSocket.Listener {
         }
     }
 
-    private String getFormattedScoreboardDataForDiscord(ScoreboardObjective objective) {
-        if (server == null) return "";
+    // サーバースレッドで取得したスコアの写し（0以下と除外プレイヤーは取得時に除く）
+    private static final class LeaderboardSnapshot {
+        final String objectiveName;
+        final String displayName;
+        final boolean timeStat;
+        final boolean sorted; // 取得時点でスコア順に並んでいるか
+        final String[] names;
+        final int[] scores;
+        final int count;
         
-        // スコアボードのエントリを収集
-        Map<String, Integer> scores = new LinkedHashMap<>();
-        int serverTotal = 0;
+        LeaderboardSnapshot(String objectiveName, String displayName, boolean timeStat, boolean sorted,
+                            String[] names, int[] scores, int count) {
+            this.objectiveName = objectiveName;
+            this.displayName = displayName;
+            this.timeStat = timeStat;
+            this.sorted = sorted;
+            this.names = names;
+            this.scores = scores;
+            this.count = count;
+        }
+    }
+    
+    /**
+     * スコアの写しを取得（サーバースレッドで呼び出す）
+     * @return 写し（オブジェクティブが存在しない場合はnull）
+     */
+    private LeaderboardSnapshot captureSnapshot(String objectiveName) {
+        ScoreboardObjective objective = ServerScoreboardManager.resolveObjective(objectiveName);
+        if (objective == null) return null;
         
-        // 統計タイプを取得
-        String statType = null;
-        if (objective.getName().startsWith("total_")) {
-            statType = objective.getName().substring(6); // "total_" を除去
+        String displayName = TotalStatsManager.getTotalDisplayName(objectiveName);
+        if (displayName == null) {
+            displayName = objective.getDisplayName().getString();
+        }
+        String name = objective.getName();
+        boolean timeStat = name.contains("play_time");
+        
+        if (name.startsWith("total_")) {
+            String statType = name.substring(6); // "total_" を除去
             if (!TotalStatsManager.getEnabledStats().contains(statType)) {
-                return ""; // 無効な統計
+                // 無効な統計
+                return new LeaderboardSnapshot(objectiveName, displayName, timeStat, true, new String[0], new int[0], 0);
             }
             
-            // キャッシュされたデータからも取得
-            Map<String, Integer> cachedStats = PlayerStatsCache.getAllPlayerStats(statType);
-            for (Map.Entry<String, Integer> entry : cachedStats.entrySet()) {
-                String playerName = entry.getKey();
-                if (!TotalStatsManager.isPlayerExcluded(playerName) && entry.getValue() > 0) {
-                    scores.put(playerName, entry.getValue());
-                    serverTotal += entry.getValue();
-                }
+            // TotalStatsManagerが更新している順位インデックスを使用（スコア順）
+            ScoreboardRankIndex.RankedObjective index = ScoreboardRankIndex.get(ScoreboardRankIndex.statKey(statType));
+            if (index == null) {
+                // まだ集計されていない場合はキャッシュされたデータから並べる（登録はTotalStatsManagerに任せる）
+                index = ScoreboardRankIndex.build(PlayerStatsCache.getAllPlayerStats(statType));
             }
-        } else {
-            // 通常のスコアボードの場合
-            for (String playerName : server.getScoreboard().getKnownPlayers()) {
-                ScoreboardPlayerScore score = server.getScoreboard().getPlayerScore(playerName, objective);
-                if (score != null && score.getScore() > 0) {
-                    // 除外プレイヤーはスキップ
-                    if (!TotalStatsManager.isPlayerExcluded(playerName)) {
-                        scores.put(playerName, score.getScore());
-                        serverTotal += score.getScore();
-                    }
+            
+            List<ScoreboardRankIndex.RankedEntry> entries = index.getAll();
+            String[] names = new String[entries.size()];
+            int[] scores = new int[entries.size()];
+            int count = 0;
+            for (ScoreboardRankIndex.RankedEntry entry : entries) {
+                if (entry.score <= 0) {
+                    break;
+                }
+                if (!TotalStatsManager.isPlayerExcluded(entry.playerName)) {
+                    names[count] = entry.playerName;
+                    scores[count] = entry.score;
+                    count++;
                 }
             }
+            return new LeaderboardSnapshot(objectiveName, displayName, timeStat, true, names, scores, count);
         }
         
-        if (scores.isEmpty() && serverTotal == 0) {
+        // 通常のスコアボードはオブジェクティブのスコアのみ取得（並べ替えは後で行う）
+        Collection<ScoreboardPlayerScore> allScores = server.getScoreboard().getAllPlayerScores(objective);
+        String[] names = new String[allScores.size()];
+        int[] scores = new int[allScores.size()];
+        int count = 0;
+        for (ScoreboardPlayerScore score : allScores) {
+            if (score.getScore() > 0 && !TotalStatsManager.isPlayerExcluded(score.getPlayerName())) {
+                names[count] = score.getPlayerName();
+                scores[count] = score.getScore();
+                count++;
+            }
+        }
+        return new LeaderboardSnapshot(objectiveName, displayName, timeStat, false, names, scores, count);
+    }
+    
+    /**
+     * 写しをDiscord用のテキストに整形（Botのスレッドで呼び出す）
+     */
+    private static String formatLeaderboard(LeaderboardSnapshot snapshot) {
+        if (snapshot.count == 0) {
             return "";
         }
         
-        // スコア順にソート（降順）
-        List<Map.Entry<String, Integer>> sortedScores = new ArrayList<>(scores.entrySet());
-        sortedScores.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+        // スコア順（降順、同点は名前順）に並べる
+        Integer[] order = new Integer[snapshot.count];
+        int serverTotal = 0;
+        for (int i = 0; i < snapshot.count; i++) {
+            order[i] = i;
+            serverTotal += snapshot.scores[i];
+        }
+        if (!snapshot.sorted) {
+            Arrays.sort(order, (a, b) -> snapshot.scores[a] != snapshot.scores[b]
+                ? Integer.compare(snapshot.scores[b], snapshot.scores[a])
+                : snapshot.names[a].compareTo(snapshot.names[b]));
+        }
         
-        // フォーマット
-        StringBuilder sb = new StringBuilder();
+        // フォーマット（String.formatを使わずに桁揃えする）
+        boolean timeStat = snapshot.timeStat;
+        StringBuilder sb = new StringBuilder(64 + snapshot.count * 32);
         sb.append("```\n");
         
         // サーバー合計を最上部に表示（$SERVER_TOTALで左揃え）
-        if (objective.getName().contains("play_time")) {
-            int totalMinutes = serverTotal / 20 / 60; // ticks -> minutes
-            int hours = totalMinutes / 60;
-            int minutes = totalMinutes % 60;
-            sb.append(String.format("$SERVER_TOTAL%16s\n", String.format("%dh %dm", hours, minutes)));
+        sb.append("$SERVER_TOTAL");
+        if (timeStat) {
+            TimeFormatCache.appendPadLeft(sb, TimeFormatCache.formatHoursMinutes("$SERVER_TOTAL", serverTotal), 16);
         } else {
-            sb.append(String.format("$SERVER_TOTAL%16d\n", serverTotal));
+            TimeFormatCache.appendPadLeft(sb, serverTotal, 16);
         }
+        sb.append('\n');
         
         // 横線を追加
         sb.append("─────────────────────────────\n");
         
         // プレイヤースコア（スコア順）
-        for (Map.Entry<String, Integer> entry : sortedScores) {
-            String playerName = entry.getKey();
-            int score = entry.getValue();
+        for (int i : order) {
+            String playerName = snapshot.names[i];
+            int score = snapshot.scores[i];
+            TimeFormatCache.appendPadRight(sb, playerName, 16);
             
-            // play_timeの場合は時間フォーマット
-            if (objective.getName().contains("play_time")) {
-                int totalMinutes = score / 20 / 60; // ticks -> minutes
-                int hours = totalMinutes / 60;
-                int minutes = totalMinutes % 60;
-                sb.append(String.format("%-16s%13s\n", playerName, String.format("%dh %dm", hours, minutes)));
+            // play_timeの場合は時間フォーマット（分が変わるまでキャッシュを使用）
+            if (timeStat) {
+                TimeFormatCache.appendPadLeft(sb, TimeFormatCache.formatHoursMinutes(playerName, score), 13);
             } else {
-                sb.append(String.format("%-16s%13d\n", playerName, score));
+                TimeFormatCache.appendPadLeft(sb, score, 13);
             }
+            sb.append('\n');
         }
         
         sb.append("```");
@@ -939,7 +1114,13 @@ public class SimpleDiscordBot implements WebSocket.Listener {
     public static class ForumThreadInfo {
         public final String objectiveName;
         public final String threadId;
-        public String lastMessageId;
+        public volatile String lastMessageId;
+        // 最後に投稿した内容のハッシュ（同じ内容の場合は再送しない）
+        public volatile String lastContentHash;
+        // 最後に編集を依頼した内容のハッシュ（まとめられた編集のうち実際に送信される内容）
+        volatile String pendingContentHash;
+        // 送信中の新規投稿（完了するまで他の投稿は待つ）
+        CompletableFuture<Void> pendingPost;
         
         ForumThreadInfo(String objectiveName, String threadId, String lastMessageId) {
             this.objectiveName = objectiveName;
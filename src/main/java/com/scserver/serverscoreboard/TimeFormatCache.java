@@ -0,0 +1,152 @@
+package com.scserver.serverscoreboard;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 時間表示（nd nh nm形式）のフォーマットとキャッシュ
+ * 表示は分単位なので、同じ分の間は前回の文字列をそのまま返す
+ */
+public class TimeFormatCache {
+    private static final int TICKS_PER_MINUTE = 1200; // 20 ticks/秒 * 60秒
+
+    // 統計ID -> エントリ名の前半（プレイヤー名など） -> 最後に作成した表示文字列
+    private static final Map<String, Map<String, CachedText>> entryNameCache = new ConcurrentHashMap<>();
+    // キー（Discord表示のプレイヤー名など） -> 最後に作成した時間・分表示
+    private static final Map<String, CachedText> hoursMinutesCache = new ConcurrentHashMap<>();
+
+    // フォーマット用の使い回しバッファ（Discordの整形は別スレッドで行われる場合がある）
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(64));
+
+    private static final class CachedText {
+        final int minuteBucket;
+        final String text;
+
+        CachedText(int minuteBucket, String text) {
+            this.minuteBucket = minuteBucket;
+            this.text = text;
+        }
+    }
+
+    /**
+     * 時間系統計の表示エントリ名（"名前 §7nd nh nm"）を取得
+     * 分が変わらない限り前回と同じ文字列を返す
+     * @param statId 統計ID
+     * @param prefix エントリ名の前半（プレイヤー名や$SERVER_TOTAL）
+     * @param ticks 時間（tick）
+     */
+    public static String entryName(String statId, String prefix, int ticks) {
+        int bucket = ticks / TICKS_PER_MINUTE;
+        Map<String, CachedText> statCache = entryNameCache.computeIfAbsent(statId, k -> new ConcurrentHashMap<>());
+        CachedText cached = statCache.get(prefix);
+        if (cached != null && cached.minuteBucket == bucket) {
+            return cached.text;
+        }
+
+        StringBuilder sb = builder();
+        sb.append(prefix).append(" §7");
+        appendShort(sb, ticks);
+        String text = sb.toString();
+        statCache.put(prefix, new CachedText(bucket, text));
+        return text;
+    }
+
+    public static void clearStat(String statId) {
+        entryNameCache.remove(statId);
+    }
+
+    /**
+     * 時間・分表示（nh nm形式）を取得（キー単位でキャッシュ）
+     */
+    public static String formatHoursMinutes(String key, int ticks) {
+        int bucket = ticks / TICKS_PER_MINUTE;
+        CachedText cached = hoursMinutesCache.get(key);
+        if (cached != null && cached.minuteBucket == bucket) {
+            return cached.text;
+        }
+
+        StringBuilder sb = builder();
+        appendHoursMinutes(sb, ticks);
+        String text = sb.toString();
+        hoursMinutesCache.put(key, new CachedText(bucket, text));
+        return text;
+    }
+
+    /**
+     * 短い時間表示（nd nh nm形式）をバッファに追記
+     */
+    public static StringBuilder appendShort(StringBuilder sb, int ticks) {
+        int totalSeconds = ticks / 20;
+        int days = totalSeconds / 86400;
+        int hours = (totalSeconds % 86400) / 3600;
+        int minutes = (totalSeconds % 3600) / 60;
+
+        if (days > 0) {
+            sb.append(days).append("d ").append(hours).append("h ").append(minutes).append('m');
+        } else if (hours > 0) {
+            sb.append(hours).append("h ").append(minutes).append('m');
+        } else {
+            sb.append(minutes).append('m');
+        }
+        return sb;
+    }
+
+    /**
+     * 時間・分表示（nh nm形式、日は時間に含める）をバッファに追記
+     */
+    public static StringBuilder appendHoursMinutes(StringBuilder sb, int ticks) {
+        int totalMinutes = ticks / TICKS_PER_MINUTE;
+        return sb.append(totalMinutes / 60).append("h ").append(totalMinutes % 60).append('m');
+    }
+
+    /**
+     * 左寄せで指定幅まで空白を埋める（%-Ns相当）
+     */
+    public static StringBuilder appendPadRight(StringBuilder sb, CharSequence text, int width) {
+        sb.append(text);
+        for (int i = text.length(); i < width; i++) {
+            sb.append(' ');
+        }
+        return sb;
+    }
+
+    /**
+     * 右寄せで指定幅まで空白を埋める（%Ns相当）
+     */
+    public static StringBuilder appendPadLeft(StringBuilder sb, CharSequence text, int width) {
+        for (int i = text.length(); i < width; i++) {
+            sb.append(' ');
+        }
+        return sb.append(text);
+    }
+
+    /**
+     * 数値を右寄せで追記（%Nd相当、文字列を作らない）
+     */
+    public static StringBuilder appendPadLeft(StringBuilder sb, long value, int width) {
+        int digits = value < 0 ? 1 : 0;
+        long rest = value;
+        do {
+            digits++;
+            rest /= 10;
+        } while (rest != 0);
+        for (int i = digits; i < width; i++) {
+            sb.append(' ');
+        }
+        return sb.append(value);
+    }
+
+    /**
+     * 使い回しバッファを取得（呼び出し側で保持しないこと）
+     */
+    public static StringBuilder builder() {
+        StringBuilder sb = BUILDER.get();
+        sb.setLength(0);
+        return sb;
+    }
+
+    public static void clear() {
+        entryNameCache.clear();
+        hoursMinutesCache.clear();
+    }
+}
@@ -31,9 +31,14 @@ public class TotalStatsManager {
     private static final Map<String, TotalStatConfig> totalStats = new ConcurrentHashMap<>();
     private static final Map<String, Integer> cachedTotals = new ConcurrentHashMap<>();
     private static final Set<String> enabledStats = new HashSet<>();
+    // 統計の登録・有効/無効が変わるたびに増える（GUIのキャッシュの判定に使用）
+    private static volatile int statsVersion = 0;
     private static int updateCounter = 0;
     private static final Map<String, Map<String, Integer>> lastPlayerStats = new ConcurrentHashMap<>();
     private static final Set<String> excludedPlayers = new HashSet<>();
+    // 仮想モード: 統計ID -> 表示エントリ名 -> スコア（サーバースコアボードには書き込まない）
+    private static final Map<String, Map<String, Integer>> virtualEntries = new ConcurrentHashMap<>();
+    private static final Map<String, ScoreboardObjective> virtualObjectives = new ConcurrentHashMap<>();
     
     // Common statistics
     public static final Map<String, String> COMMON_STATS = new HashMap<>();
@@ -297,14 +302,19 @@ public class TotalStatsManager {
     public static void registerTotalStat(String id, String displayName, String statType) {
         TotalStatConfig config = new TotalStatConfig(id, displayName, statType);
         totalStats.put(id, config);
+        statsVersion++;
         
-        // スコアボードオブジェクティブを作成
-        createTotalObjective(config);
+        // オブジェクティブは有効化時に作成する（無効な統計でscoreboard.datを肥大化させない）
         
         ServerScoreboardLogger.info("Registered total stat: " + id + " (" + displayName + ")");
     }
     
     private static void createTotalObjective(TotalStatConfig config) {
+        // 仮想モードではサーバースコアボードにオブジェクティブを作らない
+        if (isVirtualMode()) {
+            return;
+        }
+        
         Scoreboard scoreboard = server.getScoreboard();
         String objectiveName = TOTAL_PREFIX + config.id;
         
@@ -356,7 +366,7 @@ public class TotalStatsManager {
         String objectiveName = TOTAL_PREFIX + config.id;
         ScoreboardObjective objective = scoreboard.getObjective(objectiveName);
         
-        if (objective == null) {
+        if (objective == null && !isVirtualMode()) {
             createTotalObjective(config);
             objective = scoreboard.getObjective(objectiveName);
             if (objective == null) return;
@@ -402,8 +412,23 @@ public class TotalStatsManager {
         }
         
         // Check if stats have changed
+        // 前回の統計値と比較し、変化したプレイヤー・いなくなったプレイヤーを求める
         Map<String, Integer> lastStats = lastPlayerStats.get(config.id);
-        if (lastStats == null || !lastStats.equals(playerStats)) {
+        List<String> changedPlayers = new ArrayList<>();
+        List<String> removedPlayers = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : playerStats.entrySet()) {
+            if (lastStats == null || !entry.getValue().equals(lastStats.get(entry.getKey()))) {
+                changedPlayers.add(entry.getKey());
+            }
+        }
+        if (lastStats != null) {
+            for (String playerName : lastStats.keySet()) {
+                if (!playerStats.containsKey(playerName)) {
+                    removedPlayers.add(playerName);
+                }
+            }
+        }
+        if (lastStats == null || !changedPlayers.isEmpty() || !removedPlayers.isEmpty()) {
             hasChanged = true;
             lastPlayerStats.put(config.id, new HashMap<>(playerStats));
         }
@@ -413,62 +438,180 @@ public class TotalStatsManager {
             return;
         }
         
-        // Clear old scores
-        Collection<ScoreboardPlayerScore> oldScores = scoreboard.getAllPlayerScores(objective);
-        for (ScoreboardPlayerScore oldScore : oldScores) {
-            scoreboard.resetPlayerScore(oldScore.getPlayerName(), objective);
+        // デバッグモード: 統計値の変化を記録（表示エントリではなくプレイヤー単位）
+        if (ServerScoreboardConfig.DEBUG_MODE_ENABLED) {
+            recordStatChanges(config, objectiveName, lastStats, playerStats, changedPlayers, total);
         }
         
-        // 時間系統計の場合は特別な表示処理
-        if (config.statType.equals("play_time") || config.statType.equals("sneak_time") || 
-            config.statType.equals("time_since_death") || config.statType.equals("time_since_rest")) {
-            // プレイ時間を名前の後ろに表示、スコアは0に設定
-            for (Map.Entry<String, Integer> entry : playerStats.entrySet()) {
-                String playerName = entry.getKey();
-                int ticks = entry.getValue();
-                String timeFormatted = formatTimeShort(ticks);
-                String displayName = playerName + " §7" + timeFormatted;
-                ScoreboardPlayerScore score = scoreboard.getPlayerScore(displayName, objective);
-                score.setScore(0);
+        // 順位インデックスには変化したプレイヤーのみ反映する
+        String indexKey = ScoreboardRankIndex.statKey(config.id);
+        if (lastStats == null) {
+            // 前回の統計値がない（初回・強制更新）場合は作り直す
+            ScoreboardRankIndex.removeObjective(indexKey);
+        }
+        for (String playerName : removedPlayers) {
+            ScoreboardRankIndex.removeScore(indexKey, playerName);
+        }
+        for (String playerName : changedPlayers) {
+            ScoreboardRankIndex.updateScore(indexKey, playerName, playerStats.get(playerName));
+        }
+        
+        if (isVirtualMode()) {
+            // 仮想モード: 表示エントリをMOD内に保持し、表示中のプレイヤーにのみパケットで送信する
+            virtualEntries.put(config.id, buildDisplayEntries(config, playerStats, total));
+            cachedTotals.put(config.id, total);
+            if (ServerScoreboardLogger.isDebugEnabled()) {
+                ServerScoreboardLogger.debug("Updated virtual " + config.id + " - Total: " + total + ", Players: " + playerStats.size());
             }
-            
-            // サーバー合計も同様に表示
-            String totalTimeFormatted = formatTimeShort(total);
-            String totalDisplayName = "  §6§l$SERVER_TOTAL §7" + totalTimeFormatted;
-            ScoreboardPlayerScore totalScore = scoreboard.getPlayerScore(totalDisplayName, objective);
-            totalScore.setScore(0);
-        } else {
-            // 通常の統計表示
-            ScoreboardPlayerScore totalScore = scoreboard.getPlayerScore("  §6§l$SERVER_TOTAL", objective);
-            int oldTotal = totalScore.getScore();
-            totalScore.setScore(total);
-            
-            // デバッグログ: 合計スコアの変更
-            if (oldTotal != total) {
-                ServerScoreboardLogger.debugScoreChange("合計スコア更新", config.id, "$SERVER_TOTAL", oldTotal, total);
+            // 統計スコアボードを表示しているプレイヤーに更新を送信
+            ServerScoreboardManager.updateTotalStatsForWatchers();
+            return;
+        }
+        
+        // 表示エントリを作成し、変化したものだけを書き込む
+        // （全リセット→再書き込みだと時間表示付きの名前が毎分作り直される）
+        Map<String, Integer> displayEntries = buildDisplayEntries(config, playerStats, total);
+        
+        // 不要になったエントリを削除
+        List<String> staleEntries = new ArrayList<>();
+        for (ScoreboardPlayerScore oldScore : scoreboard.getAllPlayerScores(objective)) {
+            if (!displayEntries.containsKey(oldScore.getPlayerName())) {
+                staleEntries.add(oldScore.getPlayerName());
             }
-            
-            for (Map.Entry<String, Integer> entry : playerStats.entrySet()) {
-                if (entry.getValue() > 0) { // 0の値は表示しない
-                    ScoreboardPlayerScore score = scoreboard.getPlayerScore(entry.getKey(), objective);
-                    int oldValue = score.getScore();
-                    score.setScore(entry.getValue());
-                    
-                    // デバッグログ: 個別スコアの変更
-                    if (oldValue != entry.getValue()) {
-                        ServerScoreboardLogger.debugScoreChange("スコア更新", config.id, entry.getKey(), oldValue, entry.getValue());
-                    }
-                }
+        }
+        for (String staleEntry : staleEntries) {
+            scoreboard.resetPlayerScore(staleEntry, objective);
+        }
+        
+        for (Map.Entry<String, Integer> entry : displayEntries.entrySet()) {
+            boolean exists = scoreboard.playerHasObjective(entry.getKey(), objective);
+            ScoreboardPlayerScore score = scoreboard.getPlayerScore(entry.getKey(), objective);
+            int oldValue = score.getScore();
+            // 新規エントリはスコア0でも書き込んで更新を通知する
+            if (!exists || oldValue != entry.getValue()) {
+                score.setScore(entry.getValue());
             }
         }
         
+        // MODが所有するエントリとして記録（scoreboard.datの圧縮用）
+        ScoreboardCompactor.trackOwnedEntries(objectiveName, displayEntries.keySet());
+        
         cachedTotals.put(config.id, total);
-        ServerScoreboardLogger.debug("Updated " + config.id + " - Total: " + total + ", Players: " + playerStats.size());
+        if (ServerScoreboardLogger.isDebugEnabled()) {
+            ServerScoreboardLogger.debug("Updated " + config.id + " - Total: " + total + ", Players: " + playerStats.size());
+        }
         
         // 統計スコアボードを表示しているプレイヤーに更新を送信
         ServerScoreboardManager.updateTotalStatsForWatchers();
     }
     
+    // 前回の統計値から変化したプレイヤーを記録
+    private static void recordStatChanges(TotalStatConfig config, String objectiveName, Map<String, Integer> lastStats,
+                                          Map<String, Integer> playerStats, List<String> changedPlayers, int total) {
+        for (String playerName : changedPlayers) {
+            Integer oldValue = lastStats != null ? lastStats.get(playerName) : null;
+            ServerScoreboardLogger.debugScoreChange("スコア更新", objectiveName, playerName,
+                oldValue != null ? oldValue : 0, playerStats.get(playerName));
+        }
+        Integer oldTotal = cachedTotals.get(config.id);
+        if (oldTotal == null || oldTotal != total) {
+            ServerScoreboardLogger.debugScoreChange("合計スコア更新", objectiveName, SidebarWindow.SERVER_TOTAL_MARKER,
+                oldTotal != null ? oldTotal : 0, total);
+        }
+    }
+    
+    // 表示エントリ（エントリ名 -> スコア）を作成
+    // 時間系統計はプレイ時間を名前の後ろに表示し、スコアは0にする
+    private static Map<String, Integer> buildDisplayEntries(TotalStatConfig config, Map<String, Integer> playerStats, int total) {
+        Map<String, Integer> entries = new HashMap<>();
+        if (isTimeStat(config.statType)) {
+            for (Map.Entry<String, Integer> entry : playerStats.entrySet()) {
+                entries.put(TimeFormatCache.entryName(config.id, entry.getKey(), entry.getValue()), 0);
+            }
+            entries.put(TimeFormatCache.entryName(config.id, "  §6§l$SERVER_TOTAL", total), 0);
+        } else {
+            entries.put("  §6§l$SERVER_TOTAL", total);
+            for (Map.Entry<String, Integer> entry : playerStats.entrySet()) {
+                if (entry.getValue() > 0) {
+                    entries.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return Collections.unmodifiableMap(entries);
+    }
+    
+    private static boolean isTimeStat(String statType) {
+        return statType.equals("play_time") || statType.equals("sneak_time") || 
+            statType.equals("time_since_death") || statType.equals("time_since_rest");
+    }
+    
+    public static boolean isVirtualMode() {
+        return ServerScoreboardConfig.TOTAL_STATS_VIRTUAL_MODE;
+    }
+    
+    /**
+     * 仮想モードの切り替え
+     * 有効化するとサーバースコアボード上の統計オブジェクティブを削除し、scoreboard.datへの書き込みを止める
+     */
+    public static void setVirtualMode(boolean enabled) {
+        if (ServerScoreboardConfig.TOTAL_STATS_VIRTUAL_MODE == enabled) {
+            return;
+        }
+        ServerScoreboardConfig.TOTAL_STATS_VIRTUAL_MODE = enabled;
+        
+        if (server != null) {
+            Scoreboard scoreboard = server.getScoreboard();
+            if (enabled) {
+                for (String id : totalStats.keySet()) {
+                    ScoreboardObjective objective = scoreboard.getObjective(TOTAL_PREFIX + id);
+                    if (objective != null) {
+                        scoreboard.removeObjective(objective);
+                    }
+                }
+            } else {
+                virtualEntries.clear();
+                virtualObjectives.clear();
+            }
+            
+            // 新しい保存先に書き直し、表示中のプレイヤーに再送信
+            forceUpdateAllStats();
+            ServerScoreboardManager.refreshTotalStatViewers();
+        }
+        ServerScoreboardLogger.info("Total stats virtual mode " + (enabled ? "enabled" : "disabled"));
+    }
+    
+    /**
+     * 仮想モードの統計オブジェクティブ（パケット送信専用）を取得
+     * @return 仮想オブジェクティブ、仮想モードでないか無効な統計の場合はnull
+     */
+    public static ScoreboardObjective getVirtualObjective(String objectiveName) {
+        if (!isVirtualMode() || !isTotalObjective(objectiveName)) {
+            return null;
+        }
+        String id = objectiveName.substring(TOTAL_PREFIX.length());
+        TotalStatConfig config = totalStats.get(id);
+        if (config == null || !enabledStats.contains(id)) {
+            return null;
+        }
+        return virtualObjectives.computeIfAbsent(objectiveName, name -> new CustomScoreboardPacketSender.VirtualObjective(
+            name,
+            ScoreboardCriterion.DUMMY,
+            Text.literal(config.displayName),
+            ScoreboardCriterion.RenderType.INTEGER
+        ));
+    }
+    
+    /**
+     * 仮想モードの表示エントリを取得
+     * @return 表示エントリ名 -> スコア（未集計の場合は空）
+     */
+    public static Map<String, Integer> getVirtualEntries(String objectiveName) {
+        if (!isTotalObjective(objectiveName)) {
+            return Collections.emptyMap();
+        }
+        return virtualEntries.getOrDefault(objectiveName.substring(TOTAL_PREFIX.length()), Collections.emptyMap());
+    }
+    
     private static int calculateTotalForStat(TotalStatConfig config) {
         int total = 0;
         
@@ -484,44 +627,6 @@ public class TotalStatsManager {
         return total;
     }
     
-    // プレイ時間をフォーマット（tick -> 日時分）
-    private static String formatPlayTime(int ticks) {
-        int totalSeconds = ticks / 20;
-        int days = totalSeconds / 86400;
-        int hours = (totalSeconds % 86400) / 3600;
-        int minutes = (totalSeconds % 3600) / 60;
-        
-        if (days > 0) {
-            return String.format("%dd %dh %dm", days, hours, minutes);
-        } else if (hours > 0) {
-            return String.format("%dh %dm", hours, minutes);
-        } else {
-            return String.format("%dm", minutes);
-        }
-    }
-    
-    // 時間をスコア値にエンコード（表示は日時分形式になるが、実際は分単位の値）
-    private static int encodeTimeAsScore(int ticks) {
-        int totalMinutes = ticks / 1200; // 20 ticks/秒 * 60秒 = 1200 ticks/分
-        return totalMinutes;
-    }
-    
-    // 短い時間表示フォーマット（nd nh nm形式）
-    private static String formatTimeShort(int ticks) {
-        int totalSeconds = ticks / 20;
-        int days = totalSeconds / 86400;
-        int hours = (totalSeconds % 86400) / 3600;
-        int minutes = (totalSeconds % 3600) / 60;
-        
-        if (days > 0) {
-            return String.format("%dd %dh %dm", days, hours, minutes);
-        } else if (hours > 0) {
-            return String.format("%dh %dm", hours, minutes);
-        } else {
-            return String.format("%dm", minutes);
-        }
-    }
-    
     public static int getPlayerStatTotal(ServerPlayerEntity player, String statType) {
         int total = 0;
         
@@ -1295,6 +1400,7 @@ public class TotalStatsManager {
     public static void enableStat(String statId) {
         if (totalStats.containsKey(statId)) {
             enabledStats.add(statId);
+            statsVersion++;
             TotalStatConfig config = totalStats.get(statId);
             createTotalObjective(config);
             ServerScoreboardLogger.info("Enabled stat: " + statId);
@@ -1305,6 +1411,7 @@ public class TotalStatsManager {
     
     public static void disableStat(String statId) {
         enabledStats.remove(statId);
+        statsVersion++;
         // Remove the objective from scoreboard
         Scoreboard scoreboard = server.getScoreboard();
         String objectiveName = TOTAL_PREFIX + statId;
@@ -1315,9 +1422,19 @@ public class TotalStatsManager {
         // キャッシュからも削除
         lastPlayerStats.remove(statId);
         cachedTotals.remove(statId);
+        virtualEntries.remove(statId);
+        virtualObjectives.remove(objectiveName);
+        ScoreboardCompactor.forgetObjective(objectiveName);
+        TimeFormatCache.clearStat(statId);
+        ScoreboardRankIndex.removeObjective(ScoreboardRankIndex.statKey(statId));
+        SidebarWindow.clearSnapshot(objectiveName);
         ServerScoreboardLogger.info("Disabled stat: " + statId);
     }
     
+    public static int getStatsVersion() {
+        return statsVersion;
+    }
+    
     public static Set<String> getEnabledStats() {
         return new HashSet<>(enabledStats);
     }